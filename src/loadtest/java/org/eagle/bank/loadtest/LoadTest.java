@@ -0,0 +1,234 @@
+package org.eagle.bank.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.eagle.bank.Main;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop HTTP load test of login and transaction posting, run once with requests on platform threads and once
+ * on virtual threads. Each mode boots its own application on a random port with a fresh in-memory database; a
+ * fixed number of clients then send requests back to back for the measured duration after a warm-up. Reports
+ * throughput, p50/p99 latency and non-2xx responses per scenario and mode.
+ * <p>
+ * Run with {@code mvn -Ploadtest test-compile exec:exec [-Dloadtest.args="--clients=400 --duration=60"]}.
+ * Options: {@code --modes=platform,virtual}, {@code --scenarios=login,posting}, {@code --clients=200},
+ * {@code --warmup=10}, {@code --duration=30} (seconds).
+ * <p>
+ * Measured on JDK 21.0.1 with one vCPU shared by the application, the clients and H2; 10 s warm-up and 30 s
+ * measured per row. Errors on login are requests shed by the password verification pool (a single thread here) once
+ * its queue is full or a request has waited {@code security.password-verifier.max-queue-wait}:
+ * <pre>
+ * mode      scenario  clients   req/s   p50 ms   p99 ms  errors
+ * platform  login         200    99.0   1604.9   4814.5    2930
+ * virtual   login         200   165.1    854.7   3571.6    4874
+ * platform  posting       200   150.8   1250.8   3360.5       0
+ * virtual   posting       200   186.8   1098.2   1283.9       0
+ * platform  login          50    23.4   2171.8   2786.4     523
+ * virtual   login          50    23.9   2205.0   2403.2     535
+ * platform  posting        50   150.6    315.4    749.7       0
+ * virtual   posting        50   219.6    227.0    395.3       0
+ * </pre>
+ * Posting gains from virtual threads, mostly in tail latency. Login is bound by BCrypt on the one core in either
+ * mode; at 200 clients the extra virtual-thread requests are rejections, not logins. Numbers from a multi-core host
+ * will differ.
+ */
+public class LoadTest {
+
+    private static final String PASSWORD = "Str0ng!Pass";
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    record Result(String mode, String scenario, long requests, long errors, double seconds, long[] latenciesNanos) {
+        double throughput() {
+            return requests / seconds;
+        }
+
+        double percentileMillis(double percentile) {
+            if (latenciesNanos.length == 0) {
+                return Double.NaN;
+            }
+            int index = (int) Math.ceil(percentile / 100.0 * latenciesNanos.length) - 1;
+            return latenciesNanos[Math.max(0, index)] / 1_000_000.0;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        List<String> modes = List.of(options.getOrDefault("modes", "platform,virtual").split(","));
+        List<String> scenarios = List.of(options.getOrDefault("scenarios", "login,posting").split(","));
+        int clients = Integer.parseInt(options.getOrDefault("clients", "200"));
+        Duration warmup = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "10")));
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "30")));
+
+        List<Result> results = new ArrayList<>();
+        for (String mode : modes) {
+            try (ConfigurableApplicationContext context = start("virtual".equals(mode))) {
+                String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+                LoadTest test = new LoadTest(baseUrl, clients);
+                test.setUp();
+                for (String scenario : scenarios) {
+                    test.run(mode, scenario, warmup);
+                    results.add(test.run(mode, scenario, duration));
+                }
+            }
+        }
+
+        System.out.printf("%n%-9s %-8s %8s %12s %10s %10s %8s%n",
+                "mode", "scenario", "clients", "req/s", "p50 ms", "p99 ms", "errors");
+        for (Result result : results) {
+            System.out.printf("%-9s %-8s %8d %12.1f %10.2f %10.2f %8d%n", result.mode(), result.scenario(), clients,
+                    result.throughput(), result.percentileMillis(50), result.percentileMillis(99), result.errors());
+        }
+    }
+
+    private final String baseUrl;
+    private final int clients;
+    private final HttpClient http;
+    private final List<String> accountNumbers = new ArrayList<>();
+    private String username;
+    private String token;
+
+    LoadTest(String baseUrl, int clients) {
+        this.baseUrl = baseUrl;
+        this.clients = clients;
+        this.http = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    private static ConfigurableApplicationContext start(boolean virtualThreads) {
+        return new SpringApplicationBuilder(Main.class).profiles("bench")
+                .run("--spring.threads.virtual.enabled=" + virtualThreads);
+    }
+
+    private void setUp() throws IOException, InterruptedException {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        username = "load-" + suffix;
+        Map<String, Object> user = Map.of(
+                "name", "Load Test",
+                "address", Map.of("line1", "1 Main St", "town", "London", "county", "London", "postcode", "E1 1AA"),
+                "phoneNumber", "+447700900123",
+                "email", username + "@example.com",
+                "username", username,
+                "password", PASSWORD);
+        expect(send(post("/v1/users", user, null)), 201);
+        token = JSON.readTree(expect(send(login()), 200)).get("token").asText();
+        // one account per few clients, so postings spread over the lanes instead of queueing on one account
+        int accounts = Math.max(1, Math.min(clients / 4, 50));
+        for (int i = 0; i < accounts; i++) {
+            Map<String, Object> account = Map.of("name", "Load " + i, "accountType", "personal", "balance", 1000);
+            JsonNode created = JSON.readTree(expect(send(post("/v1/accounts", account, token)), 201));
+            accountNumbers.add(created.get("accountNumber").asText());
+        }
+    }
+
+    private Result run(String mode, String scenario, Duration duration) throws Exception {
+        AtomicLong errors = new AtomicLong();
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Future<long[]>> workers = new ArrayList<>(clients);
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                int client = c;
+                workers.add(pool.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    while (System.nanoTime() < deadline) {
+                        HttpRequest request = "login".equals(scenario) ? login() : deposit(client);
+                        long start = System.nanoTime();
+                        try {
+                            int status = send(request).statusCode();
+                            if (status / 100 != 2) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (IOException e) {
+                            errors.incrementAndGet();
+                        }
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = System.nanoTime() - start;
+                    }
+                    return Arrays.copyOf(latencies, count);
+                }));
+            }
+        }
+        long[] all = new long[0];
+        for (Future<long[]> worker : workers) {
+            long[] latencies = worker.get();
+            int offset = all.length;
+            all = Arrays.copyOf(all, offset + latencies.length);
+            System.arraycopy(latencies, 0, all, offset, latencies.length);
+        }
+        Arrays.sort(all);
+        return new Result(mode, scenario, all.length, errors.get(), duration.toNanos() / 1e9, all);
+    }
+
+    private HttpRequest login() {
+        Map<String, Object> body = new HashMap<>();
+        body.put("username", username);
+        body.put("password", PASSWORD);
+        return post("/v1/auth/login", body, null);
+    }
+
+    private HttpRequest deposit(int client) {
+        String accountNumber = accountNumbers.get(client % accountNumbers.size());
+        return post("/v1/accounts/" + accountNumber + "/transactions",
+                Map.of("type", "deposit", "amount", 1, "reference", "load"), token);
+    }
+
+    private HttpRequest post(String path, Object body, String bearer) {
+        try {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(JSON.writeValueAsBytes(body)));
+            if (bearer != null) {
+                builder.header("Authorization", "Bearer " + bearer);
+            }
+            return builder.build();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        return http.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String expect(HttpResponse<String> response, int status) {
+        if (response.statusCode() != status) {
+            throw new IllegalStateException(response.request().uri() + " returned " + response.statusCode()
+                    + ": " + response.body());
+        }
+        return response.body();
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        return options;
+    }
+}
@@ -0,0 +1,30 @@
+package org.eagle.bank.config;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Logback {@link AsyncAppender} that counts the events it drops. With {@code neverBlock} a full queue drops the
+ * event instead of stalling the caller, and past the discarding threshold INFO and lower are dropped early; both
+ * are otherwise silent.
+ */
+public class DropCountingAsyncAppender extends AsyncAppender {
+
+    private static final LongAdder DROPPED = new LongAdder();
+
+    public static long dropped() {
+        return DROPPED.sum();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        int remaining = getRemainingCapacity();
+        // same test the base class applies, read just before it; close enough for a counter
+        if ((remaining < getDiscardingThreshold() && isDiscardable(event)) || (remaining == 0 && isNeverBlock())) {
+            DROPPED.increment();
+        }
+        super.append(event);
+    }
+}
@@ -0,0 +1,62 @@
+package org.eagle.bank.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.filter.Filter;
+import ch.qos.logback.core.spi.FilterReply;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Logback filter that keeps one in {@code sampleEvery} log lines per endpoint and logger, for lines logged while
+ * serving a request (see {@link RequestIdFilter}) at or below {@code level}. Warnings and errors, and lines logged
+ * outside a request, always pass. The first line of each endpoint and logger always passes, so rare lines are
+ * never lost.
+ */
+public class EndpointSamplingFilter extends Filter<ILoggingEvent> {
+
+    private static final int MAX_KEYS = 10_000;
+    private static final LongAdder SAMPLED_OUT = new LongAdder();
+
+    private final ConcurrentHashMap<String, AtomicLong> counters = new ConcurrentHashMap<>();
+    private int sampleEvery = 1;
+    private Level level = Level.INFO;
+
+    public static long sampledOut() {
+        return SAMPLED_OUT.sum();
+    }
+
+    public void setSampleEvery(int sampleEvery) {
+        this.sampleEvery = sampleEvery;
+    }
+
+    public void setLevel(String level) {
+        this.level = Level.toLevel(level, Level.INFO);
+    }
+
+    @Override
+    public FilterReply decide(ILoggingEvent event) {
+        if (sampleEvery <= 1 || event.getLevel().toInt() > level.toInt()) {
+            return FilterReply.NEUTRAL;
+        }
+        String endpoint = event.getMDCPropertyMap().get(RequestIdFilter.MDC_ENDPOINT);
+        if (endpoint == null) {
+            return FilterReply.NEUTRAL;
+        }
+        String key = endpoint + ' ' + event.getLoggerName();
+        AtomicLong counter = counters.get(key);
+        if (counter == null) {
+            if (counters.size() >= MAX_KEYS) {
+                return FilterReply.NEUTRAL;
+            }
+            counter = counters.computeIfAbsent(key, k -> new AtomicLong());
+        }
+        if (counter.getAndIncrement() % sampleEvery == 0) {
+            return FilterReply.NEUTRAL;
+        }
+        SAMPLED_OUT.increment();
+        return FilterReply.DENY;
+    }
+}
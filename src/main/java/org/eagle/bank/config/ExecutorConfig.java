@@ -0,0 +1,45 @@
+package org.eagle.bank.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * Runs work that blocks (JDBC) off the request thread. With {@code spring.threads.virtual.enabled}
+     * every task gets its own virtual thread, and the request concurrency limit is what bounds them. Otherwise it is
+     * a fixed platform pool whose full queue rejects new work, which the API reports as 503. Queue depth, active
+     * threads and task timings are published as {@code executor.*} metrics tagged {@code name=blocking}.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService blockingExecutor(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                                            @Value("${blocking.pool-size:32}") int poolSize,
+                                            @Value("${blocking.queue-capacity:1000}") int queueCapacity,
+                                            MeterRegistry meterRegistry) {
+        ExecutorService executor;
+        if (virtualThreads) {
+            executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("blocking-", 0).factory());
+        } else {
+            AtomicInteger threads = new AtomicInteger();
+            executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "blocking-" + threads.getAndIncrement());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, "blocking");
+    }
+}
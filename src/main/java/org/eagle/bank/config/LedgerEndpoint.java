@@ -0,0 +1,32 @@
+package org.eagle.bank.config;
+
+import org.eagle.bank.service.LedgerVerifier;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code GET /actuator/ledger} returns the last verification report (404 before the first run completes);
+ * {@code POST /actuator/ledger} runs a verification now and returns its report.
+ */
+@Component
+@Endpoint(id = "ledger")
+public class LedgerEndpoint {
+
+    private final LedgerVerifier ledgerVerifier;
+
+    public LedgerEndpoint(LedgerVerifier ledgerVerifier) {
+        this.ledgerVerifier = ledgerVerifier;
+    }
+
+    @ReadOperation
+    public LedgerVerifier.Report report() {
+        return ledgerVerifier.lastReport();
+    }
+
+    @WriteOperation
+    public LedgerVerifier.Report verify() {
+        return ledgerVerifier.verifyAll();
+    }
+}
@@ -0,0 +1,27 @@
+package org.eagle.bank.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class LoggingConfig {
+
+    /**
+     * Log lines lost to the async appender's full queue, and lines skipped by endpoint sampling. Both stay zero
+     * outside the {@code prod} logging setup.
+     */
+    @Bean
+    public MeterBinder loggingMetrics() {
+        return registry -> {
+            FunctionCounter.builder("logging.events.dropped", DropCountingAsyncAppender.class,
+                            appender -> DropCountingAsyncAppender.dropped())
+                    .description("Log events dropped because the async queue was full")
+                    .register(registry);
+            FunctionCounter.builder("logging.events.sampled.out", EndpointSamplingFilter.class,
+                            filter -> EndpointSamplingFilter.sampledOut())
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,78 @@
+package org.eagle.bank.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Tags every log line written while serving a request with a request id and the endpoint. The id is taken from
+ * the caller's {@code X-Request-Id} header when it looks safe to log, otherwise generated, and is echoed in the
+ * response. The endpoint is the method and path with id segments collapsed, e.g.
+ * {@code GET /v1/accounts/{id}/transactions}, so it can key per-endpoint log sampling. Only segments shaped like an
+ * id are collapsed: all digits (account numbers, entity ids), a prefixed code containing a digit
+ * ({@code usr-abc12}), or a UUID. Route segments such as {@code v1} stay as they are.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestIdFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-Request-Id";
+    public static final String MDC_REQUEST_ID = "requestId";
+    public static final String MDC_ENDPOINT = "endpoint";
+    private static final String ATTRIBUTE = RequestIdFilter.class.getName() + ".requestId";
+    private static final Pattern SAFE_ID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+    private static final Pattern ID_SEGMENT = Pattern.compile(
+            "\\d+|[a-z]+-(?=[A-Za-z]*\\d)[A-Za-z0-9]+|\\p{XDigit}{8}-\\p{XDigit}{4}-\\p{XDigit}{4}-\\p{XDigit}{4}-\\p{XDigit}{12}");
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String requestId = (String) request.getAttribute(ATTRIBUTE);
+        if (requestId == null) {
+            String supplied = request.getHeader(HEADER);
+            requestId = supplied != null && SAFE_ID.matcher(supplied).matches() ? supplied : UUID.randomUUID().toString();
+            request.setAttribute(ATTRIBUTE, requestId);
+            response.setHeader(HEADER, requestId);
+        }
+        MDC.put(MDC_REQUEST_ID, requestId);
+        MDC.put(MDC_ENDPOINT, endpoint(request));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            MDC.remove(MDC_REQUEST_ID);
+            MDC.remove(MDC_ENDPOINT);
+        }
+    }
+
+    // the resumed half of an async request logs too
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    static String endpoint(HttpServletRequest request) {
+        StringBuilder endpoint = new StringBuilder(request.getMethod()).append(' ');
+        String path = request.getRequestURI();
+        int start = 1;
+        while (start <= path.length()) {
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = path.length();
+            }
+            String segment = path.substring(start, end);
+            endpoint.append('/').append(ID_SEGMENT.matcher(segment).matches() ? "{id}" : segment);
+            start = end + 1;
+        }
+        return endpoint.toString();
+    }
+}
@@ -1,15 +1,17 @@
 package org.eagle.bank.controller;
 
-import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.eagle.bank.dto.BankAccountResponse;
 import org.eagle.bank.dto.CreateBankAccountRequest;
 import org.eagle.bank.dto.UpdateBankAccountRequest;
+import org.eagle.bank.model.AccountSnapshot;
 import org.eagle.bank.model.BankAccount;
 import org.eagle.bank.model.User;
+import org.eagle.bank.security.AuthenticatedUser;
 import org.eagle.bank.service.BankAccountService;
 import org.eagle.bank.service.UserService;
 import org.eagle.bank.util.MapperUtil;
+import org.eagle.bank.util.Money;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -17,7 +19,6 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
-import java.util.Optional;
 
 @RestController
 @RequestMapping("/v1/accounts")
@@ -30,67 +31,60 @@ public class AccountController {
 
     @PostMapping
     @PreAuthorize("hasAuthority('USER')")
-    public ResponseEntity<?> createAccount(@Valid @RequestBody CreateBankAccountRequest createAccountRequest, HttpServletRequest request) {
+    public ResponseEntity<?> createAccount(@Valid @RequestBody CreateBankAccountRequest createAccountRequest, AuthenticatedUser principal) {
 
-        User authenticatedUser = getAuthenticatedUser((Long) request.getAttribute("authenticatedUserId"));
-
-        if (authenticatedUser == null) {
+        if (principal == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized");
         }
+        if (createAccountRequest.getBalance() != null && !Money.isExact(createAccountRequest.getBalance())) {
+            return ResponseEntity.badRequest().body("Balance must have at most 2 decimal places");
+        }
 
-        BankAccount account = MapperUtil.getBankAccount(createAccountRequest, authenticatedUser);
+        User owner = userService.getUserReference(principal.userId());
+        BankAccount account = MapperUtil.getBankAccount(createAccountRequest, owner);
         BankAccount createdAccount = accountService.createAccount(account);
         BankAccountResponse response = MapperUtil.toBankAccountResponse(createdAccount);
-        response.setAccountType(BankAccountResponse.AccountTypeEnum.valueOf(createdAccount.getAccountType().toUpperCase()));
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
     @GetMapping("/{accountNumber}")
     @PreAuthorize("hasAuthority('USER')")
-    public ResponseEntity<?> getAccount(@PathVariable String accountNumber, HttpServletRequest request) {
-
-        User authenticatedUser = getAuthenticatedUser((Long) request.getAttribute("authenticatedUserId"));
+    public ResponseEntity<?> getAccount(@PathVariable String accountNumber, AuthenticatedUser principal) {
 
-        if (authenticatedUser == null) {
+        if (principal == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized");
         }
-        BankAccount acc = getUserAccount(accountNumber, authenticatedUser);
+        AccountSnapshot acc = accountService.getAccountSnapshot(accountNumber, principal.userId()).orElse(null);
 
         if (acc == null) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("This account does not exist or you do not have access to it");
         }
 
-        BankAccountResponse response = MapperUtil.toBankAccountResponse(acc);
-        response.setAccountType(BankAccountResponse.AccountTypeEnum.valueOf(acc.getAccountType().toUpperCase()));
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok(MapperUtil.toBankAccountResponse(acc));
     }
 
     @GetMapping
     @PreAuthorize("hasAuthority('USER')")
-    public ResponseEntity<?> listAccounts(HttpServletRequest request) {
-
-        User authenticatedUser = getAuthenticatedUser((Long) request.getAttribute("authenticatedUserId"));
+    public ResponseEntity<?> listAccounts(AuthenticatedUser principal) {
 
-        if (authenticatedUser == null) {
+        if (principal == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized");
         }
 
-        List<BankAccount> bankAccounts = accountService.getAccountsByUser(authenticatedUser);
-        List<BankAccountResponse> responses = MapperUtil.toBankAccountResponseList(bankAccounts);
+        List<AccountSnapshot> bankAccounts = accountService.getAccountSnapshotsByUserId(principal.userId());
+        List<BankAccountResponse> responses = MapperUtil.toBankAccountResponses(bankAccounts);
         return ResponseEntity.ok(responses);
     }
 
 
     @PatchMapping("/{accountNumber}")
     @PreAuthorize("hasAuthority('USER')")
-    public ResponseEntity<?> updateAccount(@PathVariable String accountNumber, @RequestBody UpdateBankAccountRequest updateAccountRequest, HttpServletRequest request) {
+    public ResponseEntity<?> updateAccount(@PathVariable String accountNumber, @RequestBody UpdateBankAccountRequest updateAccountRequest, AuthenticatedUser principal) {
 
-        User authenticatedUser = getAuthenticatedUser((Long) request.getAttribute("authenticatedUserId"));
-
-        if (authenticatedUser == null) {
+        if (principal == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized");
         }
-        BankAccount acc = getUserAccount(accountNumber, authenticatedUser);
+        BankAccount acc = getUserAccount(accountNumber, principal);
         if (acc == null) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Account not found or forbidden");
         }
@@ -103,36 +97,23 @@ public class AccountController {
 
     @DeleteMapping("/{accountNumber}")
     @PreAuthorize("hasAuthority('USER')")
-    public ResponseEntity<?> deleteAccount(@PathVariable String accountNumber, HttpServletRequest request) {
-        User authenticatedUser = getAuthenticatedUser((Long) request.getAttribute("authenticatedUserId"));
+    public ResponseEntity<?> deleteAccount(@PathVariable String accountNumber, AuthenticatedUser principal) {
 
-        if (authenticatedUser == null) {
+        if (principal == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized");
         }
-        BankAccount acc = getUserAccount(accountNumber, authenticatedUser);
+        BankAccount acc = getUserAccount(accountNumber, principal);
 
         if (acc == null) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("This account does not exist or you do not have access to it");
         }
-        accountService.deleteAccount(acc.getId());
+        accountService.deleteAccount(acc);
         return ResponseEntity.noContent().build();
     }
 
 
-    private User getAuthenticatedUser(Long authenticatedUserId) {
-        Optional<User> userOpt = userService.getUserById(authenticatedUserId);
-        return userOpt.orElse(null);
-    }
-
-    private BankAccount getUserAccount(String accountNumber, User user) {
-
-        Optional<BankAccount> accOpt = accountService.getAccountByAccountNumber(accountNumber);
-        if (accOpt.isEmpty()) {
-            return null;
-        }
-        BankAccount acc = accOpt.get();
-        if (!acc.getUser().getId().equals(user.getId())) return null;
-        return acc;
+    private BankAccount getUserAccount(String accountNumber, AuthenticatedUser principal) {
+        return accountService.getUserAccount(accountNumber, principal.userId()).orElse(null);
     }
 
 
@@ -1,16 +1,18 @@
 package org.eagle.bank.controller;
 
-import org.eagle.bank.security.JwtUtil;
+import org.eagle.bank.security.TokenService;
 import org.eagle.bank.service.UserService;
-import org.eagle.bank.model.User;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
 
 @RestController
 @RequestMapping("/v1/auth")
@@ -19,34 +21,65 @@ public class AuthController {
     @Autowired
     private UserService userService;
     @Autowired
-    private JwtUtil jwtUtil;
+    private TokenService tokenService;
+    @Autowired
+    @Qualifier("blockingExecutor")
+    private Executor blockingExecutor;
 
     public static class LoginRequest {
         public String username;
         public String password;
     }
 
-    @PostMapping("/login")
-    public ResponseEntity<Map<String, String>> authenticate(@RequestBody LoginRequest loginRequest) {
-
-        Optional<User> optionalUser = userService.authenticateUser(loginRequest.username, loginRequest.password);
-
-        if (optionalUser.isPresent()) {
-
-            User user = optionalUser.get();
-            String token = jwtUtil.generateToken(user.getUsername());
+    public static class RefreshRequest {
+        public String refreshToken;
+    }
 
-            Map<String, String> response = new HashMap<>();
-            response.put("token", token);
+    /**
+     * The user lookup runs on the blocking executor and the BCrypt check on the password verifier pool, so the
+     * request thread is held for neither. A saturated verifier fails the request with 503.
+     */
+    @PostMapping("/login")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> authenticate(@RequestBody LoginRequest loginRequest) {
+        return CompletableFuture.supplyAsync(
+                () -> userService.authenticateUser(loginRequest.username, loginRequest.password), blockingExecutor)
+                .thenCompose(Function.identity())
+                .thenApply(optionalUser -> optionalUser
+                        .map(user -> tokenResponse(tokenService.issue(user.getUsername())))
+                        .orElseGet(() -> unauthorized("Invalid details")));
+    }
 
-            return ResponseEntity.ok(response);
+    @PostMapping("/refresh")
+    public ResponseEntity<Map<String, Object>> refresh(@RequestBody RefreshRequest refreshRequest) {
+        if (refreshRequest.refreshToken == null || refreshRequest.refreshToken.isBlank()) {
+            return unauthorized("Invalid or expired refresh token");
+        }
+        return tokenService.refresh(refreshRequest.refreshToken)
+                .map(this::tokenResponse)
+                .orElseGet(() -> unauthorized("Invalid or expired refresh token"));
+    }
 
-        } else {
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestHeader("Authorization") String authorization) {
+        // the filter only authenticates Bearer tokens; anything else is the same missing credential to it
+        if (!authorization.startsWith("Bearer ")) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        tokenService.logout(authorization.substring("Bearer ".length()));
+        return ResponseEntity.noContent().build();
+    }
 
-            Map<String, String> errorResponse = new HashMap<>();
-            errorResponse.put("error", "Invalid details");
+    private ResponseEntity<Map<String, Object>> tokenResponse(TokenService.TokenPair tokens) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("token", tokens.accessToken());
+        response.put("refreshToken", tokens.refreshToken());
+        response.put("expiresIn", tokens.expiresInSeconds());
+        return ResponseEntity.ok(response);
+    }
 
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(errorResponse);
-        }
+    private ResponseEntity<Map<String, Object>> unauthorized(String message) {
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("error", message);
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(errorResponse);
     }
-} 
\ No newline at end of file
+}
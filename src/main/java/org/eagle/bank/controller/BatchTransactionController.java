@@ -0,0 +1,140 @@
+package org.eagle.bank.controller;
+
+import org.eagle.bank.dto.BatchTransactionItem;
+import org.eagle.bank.dto.BatchTransactionResponse;
+import org.eagle.bank.dto.BatchTransactionResult;
+import org.eagle.bank.dto.CreateBatchTransactionRequest;
+import org.eagle.bank.model.BankAccount;
+import org.eagle.bank.model.Transaction;
+import org.eagle.bank.security.AuthenticatedUser;
+import org.eagle.bank.service.BankAccountService;
+import org.eagle.bank.service.LedgerWriter;
+import org.eagle.bank.service.TransactionService;
+import org.eagle.bank.util.MapperUtil;
+import org.eagle.bank.util.Money;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/v1/transactions/batch")
+public class BatchTransactionController {
+
+    static final int MAX_ITEMS = 100;
+    // the bounds the OpenAPI schema puts on an amount, which the single-transaction endpoint enforces
+    static final BigDecimal MIN_AMOUNT = new BigDecimal("1.00");
+    static final BigDecimal MAX_AMOUNT = new BigDecimal("10000.00");
+
+    @Autowired
+    TransactionService transactionService;
+    @Autowired
+    BankAccountService accountService;
+
+    @PostMapping
+    @PreAuthorize("hasAuthority('USER')")
+    public ResponseEntity<?> createBatchTransaction(@RequestBody CreateBatchTransactionRequest batchRequest,
+                                                    AuthenticatedUser principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized");
+        }
+        List<BatchTransactionItem> items = batchRequest.getItems();
+        if (items == null || items.isEmpty() || items.size() > MAX_ITEMS) {
+            return ResponseEntity.badRequest().body("A batch must contain between 1 and " + MAX_ITEMS + " transactions");
+        }
+        boolean atomic = batchRequest.getMode() != CreateBatchTransactionRequest.ModeEnum.PARTIAL;
+
+        // Validate every item up front, resolving all referenced accounts in one query
+        Set<String> accountNumbers = items.stream()
+                .map(BatchTransactionItem::getAccountNumber)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<String, BankAccount> accounts = accountService.getUserAccounts(accountNumbers, principal.userId());
+        BatchTransactionResult[] results = new BatchTransactionResult[items.size()];
+        Map<Transaction, Integer> indexes = new IdentityHashMap<>();
+        List<Transaction> transactions = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            BatchTransactionItem item = items.get(i);
+            String error = validate(item, accounts);
+            if (error != null) {
+                results[i] = result(i, BatchTransactionResult.StatusEnum.FAILED, error);
+                continue;
+            }
+            Transaction transaction = MapperUtil.getTransaction(item, accounts.get(item.getAccountNumber()));
+            indexes.put(transaction, i);
+            transactions.add(transaction);
+        }
+        boolean invalid = indexes.size() < items.size();
+        if (atomic && invalid) {
+            fillNotPosted(results);
+            return ResponseEntity.badRequest().body(response(batchRequest, results));
+        }
+
+        LedgerWriter.Result outcome = transactions.isEmpty()
+                ? new LedgerWriter.Result(List.of(), List.of())
+                : transactionService.postAll(transactions, atomic);
+        for (Transaction transaction : outcome.rejected()) {
+            results[indexes.get(transaction)] = result(indexes.get(transaction),
+                    BatchTransactionResult.StatusEnum.FAILED, "Insufficient funds");
+        }
+        for (Transaction transaction : outcome.posted()) {
+            BatchTransactionResult posted = result(indexes.get(transaction), BatchTransactionResult.StatusEnum.POSTED, null);
+            posted.setTransaction(MapperUtil.toTransactionResponse(transaction));
+            results[indexes.get(transaction)] = posted;
+        }
+        fillNotPosted(results);
+
+        if (!atomic) {
+            return ResponseEntity.ok(response(batchRequest, results));
+        }
+        HttpStatus status = outcome.rejected().isEmpty() ? HttpStatus.CREATED : HttpStatus.UNPROCESSABLE_ENTITY;
+        return ResponseEntity.status(status).body(response(batchRequest, results));
+    }
+
+    private static String validate(BatchTransactionItem item, Map<String, BankAccount> accounts) {
+        if (item == null || item.getType() == null) {
+            return "Invalid transaction type";
+        }
+        if (item.getAmount() == null
+                || item.getAmount().compareTo(MIN_AMOUNT) < 0 || item.getAmount().compareTo(MAX_AMOUNT) > 0) {
+            return "Amount must be between " + MIN_AMOUNT + " and " + MAX_AMOUNT;
+        }
+        if (!Money.isExact(item.getAmount())) {
+            return "Amount must have at most 2 decimal places";
+        }
+        if (item.getAccountNumber() == null || !accounts.containsKey(item.getAccountNumber())) {
+            return "Account not found or forbidden";
+        }
+        return null;
+    }
+
+    private static void fillNotPosted(BatchTransactionResult[] results) {
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] == null) {
+                results[i] = result(i, BatchTransactionResult.StatusEnum.NOT_POSTED, null);
+            }
+        }
+    }
+
+    private static BatchTransactionResult result(int index, BatchTransactionResult.StatusEnum status, String error) {
+        BatchTransactionResult result = new BatchTransactionResult();
+        result.setIndex(index);
+        result.setStatus(status);
+        result.setError(error);
+        return result;
+    }
+
+    private static BatchTransactionResponse response(CreateBatchTransactionRequest request, BatchTransactionResult[] results) {
+        BatchTransactionResponse response = new BatchTransactionResponse();
+        response.setMode(request.getMode() == CreateBatchTransactionRequest.ModeEnum.PARTIAL
+                ? BatchTransactionResponse.ModeEnum.PARTIAL
+                : BatchTransactionResponse.ModeEnum.ATOMIC);
+        response.setResults(Arrays.asList(results));
+        return response;
+    }
+}
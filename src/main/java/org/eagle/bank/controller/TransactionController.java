@@ -1,95 +1,218 @@
 package org.eagle.bank.controller;
 
-import jakarta.servlet.http.HttpServletRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.eagle.bank.dto.CreateTransactionRequest;
+import org.eagle.bank.dto.ListTransactionsResponse;
 import org.eagle.bank.dto.TransactionResponse;
+import org.eagle.bank.exception.InsufficientFundsException;
 import org.eagle.bank.model.BankAccount;
 import org.eagle.bank.model.Transaction;
-import org.eagle.bank.model.User;
+import org.eagle.bank.security.AuthenticatedUser;
 import org.eagle.bank.service.BankAccountService;
+import org.eagle.bank.service.IdempotencyService;
 import org.eagle.bank.service.TransactionService;
-import org.eagle.bank.service.UserService;
 import org.eagle.bank.util.MapperUtil;
+import org.eagle.bank.util.Money;
+import org.eagle.bank.util.TransactionCursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/v1/accounts/{accountNumber}/transactions")
 public class TransactionController {
 
+    static final String NDJSON = "application/x-ndjson";
+    static final int DEFAULT_PAGE_SIZE = 25;
+    static final int MAX_PAGE_SIZE = 100;
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
+    static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+
     @Autowired
     TransactionService transactionService;
     @Autowired
     BankAccountService accountService;
     @Autowired
-    UserService userService;
+    IdempotencyService idempotencyService;
+    @Autowired
+    ObjectMapper objectMapper;
 
     @PostMapping
     @PreAuthorize("hasAuthority('USER')")
-    public ResponseEntity<?> createTransaction(@PathVariable String accountNumber, @RequestBody CreateTransactionRequest transactionRequest,
-                                               HttpServletRequest request) {
+    public CompletableFuture<ResponseEntity<?>> createTransaction(@PathVariable String accountNumber,
+                                                                  @RequestBody CreateTransactionRequest transactionRequest,
+                                                                  @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                                                  AuthenticatedUser principal) {
 
-        User authenticatedUser = getAuthenticatedUser((Long) request.getAttribute("authenticatedUserId"));
-
-        if (authenticatedUser == null) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized");
+        if (principal == null) {
+            return done(ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized"));
+        }
+        if (idempotencyKey == null) {
+            return postTransaction(accountNumber, transactionRequest, principal, null);
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            return done(ResponseEntity.badRequest().body(
+                    IDEMPOTENCY_KEY + " must be between 1 and " + MAX_IDEMPOTENCY_KEY_LENGTH + " characters"));
+        }
+        BigDecimal amount = transactionRequest.getAmount();
+        String fingerprint = IdempotencyService.fingerprint(accountNumber, transactionRequest.getType(),
+                amount == null ? null : amount.stripTrailingZeros().toPlainString(), transactionRequest.getReference());
+        IdempotencyService.Claim claim = idempotencyService.claim(principal.userId(), idempotencyKey, fingerprint);
+        if (claim.outcome() == IdempotencyService.Outcome.REPLAY) {
+            return done(replayed(claim.response()));
+        }
+        if (claim.outcome() == IdempotencyService.Outcome.MISMATCH) {
+            return done(ResponseEntity.unprocessableEntity()
+                    .body(IDEMPOTENCY_KEY + " was already used for a different request"));
         }
-        BankAccount authenticatedUserAcc = getAuthenticatedUserAccount(accountNumber, authenticatedUser);
+        if (claim.outcome() == IdempotencyService.Outcome.IN_PROGRESS) {
+            if (claim.inFlight() == null) {
+                return done(ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body("A request with this " + IDEMPOTENCY_KEY + " is still in progress"));
+            }
+            return claim.inFlight().thenApply(original -> original
+                    .<ResponseEntity<?>>map(this::replayed)
+                    .orElseGet(() -> ResponseEntity.status(HttpStatus.CONFLICT)
+                            .body("The original request with this " + IDEMPOTENCY_KEY + " did not complete, please retry")));
+        }
+        Long userId = principal.userId();
+        CompletableFuture<ResponseEntity<?>> posting;
+        try {
+            posting = postTransaction(accountNumber, transactionRequest, principal, idempotencyKey);
+        } catch (RuntimeException e) {
+            // nothing was posted, e.g. the lanes refused the submission
+            idempotencyService.release(userId, idempotencyKey);
+            throw e;
+        }
+        return posting.whenComplete((response, ex) -> {
+            if (ex == null && response.getStatusCode() == HttpStatus.CREATED) {
+                idempotencyService.complete(userId, idempotencyKey, (TransactionResponse) response.getBody());
+            } else {
+                idempotencyService.release(userId, idempotencyKey);
+            }
+        });
+    }
+
+    private CompletableFuture<ResponseEntity<?>> postTransaction(String accountNumber,
+                                                                 CreateTransactionRequest transactionRequest,
+                                                                 AuthenticatedUser principal,
+                                                                 String idempotencyKey) {
+        BankAccount authenticatedUserAcc = getAuthenticatedUserAccount(accountNumber, principal);
         if (authenticatedUserAcc == null) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Account does not exist");
+            return done(ResponseEntity.status(HttpStatus.NOT_FOUND).body("Account does not exist"));
         }
         Transaction.TransactionType type;
         try {
             type = Transaction.TransactionType.valueOf(transactionRequest.getType().name());
         } catch (Exception e) {
-            return ResponseEntity.badRequest().body("Invalid transaction type");
+            return done(ResponseEntity.badRequest().body("Invalid transaction type"));
+        }
+        if (transactionRequest.getAmount() == null || transactionRequest.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+            return done(ResponseEntity.badRequest().body("Amount must be more than zero"));
         }
-        if (transactionRequest.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
-            return ResponseEntity.badRequest().body("Amount must be more than zero");
+        if (!Money.isExact(transactionRequest.getAmount())) {
+            return done(ResponseEntity.badRequest().body("Amount must have at most 2 decimal places"));
         }
         if (type == Transaction.TransactionType.WITHDRAWAL &&
                 authenticatedUserAcc.getBalance().compareTo(transactionRequest.getAmount()) < 0) {
-            return ResponseEntity.badRequest().body("Insufficient funds");
+            return done(ResponseEntity.badRequest().body("Insufficient funds"));
         }
-        Transaction tx = MapperUtil.getTransaction(transactionRequest, authenticatedUserAcc, authenticatedUser);
-        Transaction created = transactionService.applyTransaction(authenticatedUserAcc, tx);
-        TransactionResponse response = MapperUtil.toTransactionResponse(created);
-        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        Transaction tx = MapperUtil.getTransaction(transactionRequest, authenticatedUserAcc);
+        if (idempotencyKey != null) {
+            tx.setIdempotencyKey(principal.userId(), idempotencyKey);
+        }
+        // Posted on the account's lane; the request thread is released until the lane has written it
+        return transactionService.submitTransaction(authenticatedUserAcc, tx)
+                .<ResponseEntity<?>>thenApply(created ->
+                        ResponseEntity.status(HttpStatus.CREATED).body(MapperUtil.toTransactionResponse(created)))
+                .exceptionally(ex -> {
+                    Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                    if (cause instanceof InsufficientFundsException) {
+                        return ResponseEntity.badRequest().body("Insufficient funds");
+                    }
+                    throw ex instanceof CompletionException completion ? completion : new CompletionException(ex);
+                });
     }
 
 
     @GetMapping
     @PreAuthorize("hasAuthority('USER')")
-    public ResponseEntity<?> listTransactions(@PathVariable String accountNumber, HttpServletRequest request) {
-        User authenticatedUser = getAuthenticatedUser((Long) request.getAttribute("authenticatedUserId"));
-        if (authenticatedUser == null) {
+    public ResponseEntity<?> listTransactions(@PathVariable String accountNumber,
+                                              @RequestParam(required = false) Integer limit,
+                                              @RequestParam(required = false) String cursor,
+                                              AuthenticatedUser principal) {
+        if (principal == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized");
         }
-        BankAccount acc = getAuthenticatedUserAccount(accountNumber, authenticatedUser);
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        TransactionCursor after;
+        try {
+            after = cursor == null ? null : TransactionCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Invalid cursor");
+        }
+        BankAccount acc = getAuthenticatedUserAccount(accountNumber, principal);
         if (acc == null) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Account not found or forbidden");
         }
-        List<Transaction> transactions = transactionService.getTransactionsByAccount(acc);
-        List<TransactionResponse> response = MapperUtil.toTransactionResponseList(transactions);
+        TransactionService.TransactionPage page = transactionService.getTransactionPage(acc, after, pageSize);
+        ListTransactionsResponse response = new ListTransactionsResponse();
+        response.setTransactions(MapperUtil.toTransactionResponseList(page.transactions()));
+        response.setNext(page.next() == null ? null : page.next().encode());
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Full export as newline-delimited JSON. Rows are written as they are read from the database cursor,
+     * so the listing is never materialised in memory.
+     */
+    @GetMapping(produces = NDJSON)
+    @PreAuthorize("hasAuthority('USER')")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(@PathVariable String accountNumber,
+                                                                    AuthenticatedUser principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(textBody("Unauthorized"));
+        }
+        BankAccount acc = getAuthenticatedUserAccount(accountNumber, principal);
+        if (acc == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(textBody("Account not found or forbidden"));
+        }
+        StreamingResponseBody body = out -> transactionService.streamTransactions(acc, tx -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(MapperUtil.toTransactionResponse(tx)));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+
     @GetMapping("/{transactionId}")
     @PreAuthorize("hasAuthority('USER')")
     public ResponseEntity<?> getTransaction(@PathVariable String accountNumber, @PathVariable Long transactionId,
-                                            HttpServletRequest request) {
-        User authenticatedUser = getAuthenticatedUser((Long) request.getAttribute("authenticatedUserId"));
-        if (authenticatedUser == null) {
+                                            AuthenticatedUser principal) {
+        if (principal == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized");
         }
-        BankAccount acc = getAuthenticatedUserAccount(accountNumber, authenticatedUser);
+        BankAccount acc = getAuthenticatedUserAccount(accountNumber, principal);
         if (acc == null) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Account not found or forbidden");
         }
@@ -103,20 +226,20 @@ public class TransactionController {
     }
 
 
-    private User getAuthenticatedUser(Long authenticatedUserId) {
-        Optional<User> userOpt = userService.getUserById(authenticatedUserId);
-        return userOpt.orElse(null);
+    private ResponseEntity<?> replayed(TransactionResponse response) {
+        return ResponseEntity.status(HttpStatus.CREATED).header(IDEMPOTENT_REPLAYED, "true").body(response);
+    }
+
+    private static CompletableFuture<ResponseEntity<?>> done(ResponseEntity<?> response) {
+        return CompletableFuture.completedFuture(response);
     }
 
-    private BankAccount getAuthenticatedUserAccount(String accountNumber, User user) {
+    private static StreamingResponseBody textBody(String message) {
+        return out -> out.write(message.getBytes(StandardCharsets.UTF_8));
+    }
 
-        List<BankAccount> userAccounts = user.getAccounts();
-        for (BankAccount acc : userAccounts) {
-            if (acc.getAccountNumber().equals(accountNumber)) {
-                return acc;
-            }
-        }
-        return null;
+    private BankAccount getAuthenticatedUserAccount(String accountNumber, AuthenticatedUser principal) {
+        return accountService.getUserAccount(accountNumber, principal.userId()).orElse(null);
     }
 
-} 
\ No newline at end of file
+}
\ No newline at end of file
@@ -1,12 +1,13 @@
 package org.eagle.bank.controller;
 
-import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.eagle.bank.dto.CreateUserRequest;
 import org.eagle.bank.dto.UpdateUserRequest;
 import org.eagle.bank.dto.UserResponse;
 import org.eagle.bank.model.User;
+import org.eagle.bank.security.AuthenticatedUser;
+import org.eagle.bank.service.BankAccountService;
 import org.eagle.bank.service.UserService;
 import org.eagle.bank.util.MapperUtil;
 import org.slf4j.Logger;
@@ -26,6 +27,8 @@ public class UserController {
 
     @Autowired
     UserService userService;
+    @Autowired
+    BankAccountService accountService;
     private static final Logger logger = LoggerFactory.getLogger(UserController.class);
 
 
@@ -45,40 +48,43 @@ public class UserController {
 
     @GetMapping("/{userId}")
     @PreAuthorize("hasAuthority('USER')")
-    public ResponseEntity<?> getUser(@PathVariable Long userId, HttpServletRequest request) {
+    public ResponseEntity<?> getUser(@PathVariable Long userId, AuthenticatedUser principal) {
 
-        logger.info("Fetching user details: {}", userId);
+        logger.debug("Fetching user details: {}", userId);
 
-        if (request.getAttribute("authenticatedUserId") == null) {
+        if (principal == null) {
 
             logger.warn("No authenticated user found in request: {}", userId);
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("User not found");
         }
-        User authenticatedUser = fetchUser((Long) request.getAttribute("authenticatedUserId"));
+        if (!principal.userId().equals(userId)) {
+            logger.warn("User {} attempted to access user {} data", principal.userId(), userId);
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Forbidden - Can only access own user data");
+        }
+        User authenticatedUser = fetchUser(principal.userId());
 
         if (authenticatedUser == null) {
             logger.warn("User not found: {}", userId);
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("User not found");
         }
-        if (!authenticatedUser.getId().equals(userId)) {
-            logger.warn("User {} attempted to access user {} data", authenticatedUser.getId(), userId);
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Forbidden - Can only access own user data");
-        }
         UserResponse userResponse = MapperUtil.toUserResponse(authenticatedUser);
         return ResponseEntity.ok(userResponse);
     }
 
     @PatchMapping("/{userId}")
     @PreAuthorize("hasAuthority('USER')")
-    public ResponseEntity<?> updateUser(@PathVariable Long userId, @RequestBody UpdateUserRequest updateUserRequest, HttpServletRequest request) {
+    public ResponseEntity<?> updateUser(@PathVariable Long userId, @RequestBody UpdateUserRequest updateUserRequest, AuthenticatedUser principal) {
 
-        User authenticatedUser = fetchUser((Long) request.getAttribute("authenticatedUserId"));
-        if (authenticatedUser == null) {
+        if (principal == null) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("User not found");
         }
-        if (!authenticatedUser.getId().equals(userId)) {
+        if (!principal.userId().equals(userId)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Forbidden - Can only update own user data");
         }
+        User authenticatedUser = fetchUser(principal.userId());
+        if (authenticatedUser == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("User not found");
+        }
 
         MapperUtil.updateUser(updateUserRequest, authenticatedUser);
         User  updatedUser = userService.updateUser(authenticatedUser);
@@ -88,18 +94,17 @@ public class UserController {
 
     @DeleteMapping("/{userId}")
     @PreAuthorize("hasAuthority('USER')")
-    public ResponseEntity<?> deleteUser(@PathVariable Long userId, HttpServletRequest request) {
+    public ResponseEntity<?> deleteUser(@PathVariable Long userId, AuthenticatedUser principal) {
 
-        User authenticatedUser = fetchUser((Long) request.getAttribute("authenticatedUserId"));
-
-        if (authenticatedUser == null) {
+        if (principal == null) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("User not found");
         }
-        if (!authenticatedUser.getId().equals(userId)) {
+        if (!principal.userId().equals(userId)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Forbidden - Can only delete own user data");
         }
 
-        if( authenticatedUser.getAccounts() != null && !authenticatedUser.getAccounts().isEmpty()) {
+        // The cached principal may predate an account opened through another instance, so ask the database
+        if (accountService.hasAccounts(userId)) {
             return ResponseEntity.status(HttpStatus.CONFLICT).body("Cannot delete user with existing accounts");
         }
         userService.deleteUser(userId);
@@ -111,4 +116,4 @@ public class UserController {
         return userOpt.orElse(null);
     }
 
-} 
\ No newline at end of file
+}
\ No newline at end of file
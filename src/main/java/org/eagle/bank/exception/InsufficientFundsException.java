@@ -0,0 +1,7 @@
+package org.eagle.bank.exception;
+
+public class InsufficientFundsException extends RuntimeException {
+    public InsufficientFundsException(String message) {
+        super(message);
+    }
+}
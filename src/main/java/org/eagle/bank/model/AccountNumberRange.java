@@ -0,0 +1,30 @@
+package org.eagle.bank.model;
+
+import jakarta.persistence.*;
+
+/**
+ * High-water mark of the account numbers handed out for a prefix: every number below {@code nextValue} has been
+ * reserved by some instance, whether or not an account was opened with it.
+ */
+@Entity
+@Table(name = "account_number_range")
+public class AccountNumberRange {
+    @Id
+    @Column(length = 2)
+    private String prefix;
+
+    @Column(nullable = false)
+    private Long nextValue;
+
+    public AccountNumberRange() {}
+
+    public AccountNumberRange(String prefix, Long nextValue) {
+        this.prefix = prefix;
+        this.nextValue = nextValue;
+    }
+
+    public String getPrefix() { return prefix; }
+    public void setPrefix(String prefix) { this.prefix = prefix; }
+    public Long getNextValue() { return nextValue; }
+    public void setNextValue(Long nextValue) { this.nextValue = nextValue; }
+}
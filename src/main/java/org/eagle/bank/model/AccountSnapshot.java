@@ -0,0 +1,17 @@
+package org.eagle.bank.model;
+
+import org.eagle.bank.util.Money;
+
+/**
+ * Immutable copy of the account fields the read endpoints return. Unlike the managed {@link BankAccount} it was
+ * taken from, it can be cached and shared between requests. The balance is held in minor units.
+ */
+public record AccountSnapshot(Long id, String accountNumber, String sortCode, String name, String accountType,
+                              long balanceMinor, Long userId) {
+
+    public static AccountSnapshot of(BankAccount account) {
+        return new AccountSnapshot(account.getId(), account.getAccountNumber(), account.getSortCode(),
+                account.getName(), account.getAccountType(), Money.toMinorUnits(account.getBalance()),
+                account.getUser().getId());
+    }
+}
@@ -0,0 +1,60 @@
+package org.eagle.bank.model;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Verified balance of an account as of a position in its ledger: {@code balance} equals the opening balance plus
+ * every transaction of the account at or before ({@code lastTransactionTimestamp}, {@code lastTransactionId}), in
+ * (timestamp, id) order. Verification then only has to sum the transactions after it.
+ */
+@Entity
+@Table(name = "balance_checkpoint")
+public class BalanceCheckpoint {
+    @Id
+    @Column(name = "account_id")
+    private Long accountId;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal balance;
+
+    @Column(nullable = false)
+    private Instant lastTransactionTimestamp;
+
+    @Column(nullable = false)
+    private Long lastTransactionId;
+
+    @Column(nullable = false)
+    private Instant checkpointedAt;
+
+    public BalanceCheckpoint() {}
+
+    public BalanceCheckpoint(Long accountId, BigDecimal balance, Instant lastTransactionTimestamp,
+                             Long lastTransactionId, Instant checkpointedAt) {
+        this.accountId = accountId;
+        this.balance = balance;
+        this.lastTransactionTimestamp = lastTransactionTimestamp;
+        this.lastTransactionId = lastTransactionId;
+        this.checkpointedAt = checkpointedAt;
+    }
+
+    /**
+     * Checkpoint of a newly opened account, before any transaction has been posted to it.
+     */
+    public static BalanceCheckpoint opening(BankAccount account) {
+        return new BalanceCheckpoint(account.getId(), account.getBalance(), Instant.EPOCH, 0L, Instant.now());
+    }
+
+    public Long getAccountId() { return accountId; }
+    public void setAccountId(Long accountId) { this.accountId = accountId; }
+    public BigDecimal getBalance() { return balance; }
+    public void setBalance(BigDecimal balance) { this.balance = balance; }
+    public Instant getLastTransactionTimestamp() { return lastTransactionTimestamp; }
+    public void setLastTransactionTimestamp(Instant lastTransactionTimestamp) { this.lastTransactionTimestamp = lastTransactionTimestamp; }
+    public Long getLastTransactionId() { return lastTransactionId; }
+    public void setLastTransactionId(Long lastTransactionId) { this.lastTransactionId = lastTransactionId; }
+    public Instant getCheckpointedAt() { return checkpointedAt; }
+    public void setCheckpointedAt(Instant checkpointedAt) { this.checkpointedAt = checkpointedAt; }
+}
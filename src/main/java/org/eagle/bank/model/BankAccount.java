@@ -5,33 +5,44 @@ import java.math.BigDecimal;
 import java.util.List;
 
 @Entity
+@Table(indexes = @Index(name = "idx_bank_account_user", columnList = "user_id"))
 public class BankAccount {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bank_account_seq")
+    @SequenceGenerator(name = "bank_account_seq", sequenceName = "bank_account_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, unique = true)
     private String accountNumber;
 
-    @Column(nullable = false, unique = true)
+    // the branch the account is held at, shared by all its accounts
+    @Column(nullable = false)
     private String sortCode;
 
     @Column(nullable = true)
     private String name;
 
-    @Column(nullable = false)
+    @Column(nullable = false, precision = 19, scale = 2)
     private BigDecimal balance;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
-    @OneToMany(mappedBy = "account", cascade = CascadeType.ALL, orphanRemoval = true)
+    // not cascaded: removing the account would load its whole history; AccountDeleter deletes it in chunks
+    @OneToMany(mappedBy = "account")
     private List<Transaction> transactions;
 
     @Column(nullable = false)
     private String accountType;
 
+    // set as the first step of deleting the account: from then on it takes no postings and is not verified
+    @Column(nullable = false)
+    private boolean closed;
+
+    @Version
+    private Long version;
+
     public BankAccount() {}
 
 
@@ -60,6 +71,10 @@ public class BankAccount {
     public void setTransactions(List<Transaction> transactions) { this.transactions = transactions; }
     public String getAccountType() { return accountType; }
     public void setAccountType(String accountType) { this.accountType = accountType; }
+    public boolean isClosed() { return closed; }
+    public void setClosed(boolean closed) { this.closed = closed; }
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
 
 
     public String getName() {
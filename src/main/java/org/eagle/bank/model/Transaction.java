@@ -5,16 +5,18 @@ import java.math.BigDecimal;
 import java.time.Instant;
 
 @Entity
+@Table(indexes = @Index(name = "idx_transaction_account_timestamp", columnList = "account_id, timestamp, id"))
 public class Transaction {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaction_seq")
+    @SequenceGenerator(name = "transaction_seq", sequenceName = "transaction_seq", allocationSize = 50)
     private Long id;
 
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private TransactionType type;
 
-    @Column(nullable = false)
+    @Column(nullable = false, precision = 19, scale = 2)
     private BigDecimal amount;
 
     @Column(nullable = false)
@@ -27,6 +29,11 @@ public class Transaction {
     @JoinColumn(name = "account_id", nullable = false)
     private BankAccount account;
 
+    // the client's Idempotency-Key this posting was made under, if any; its response is stored with the posting
+    @Transient
+    private Long idempotencyUserId;
+    @Transient
+    private String idempotencyKey;
 
     public Transaction() {}
 
@@ -59,6 +66,19 @@ public class Transaction {
         this.reference = reference;
     }
 
+    public Long getIdempotencyUserId() {
+        return idempotencyUserId;
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public void setIdempotencyKey(Long userId, String idempotencyKey) {
+        this.idempotencyUserId = userId;
+        this.idempotencyKey = idempotencyKey;
+    }
+
 
     public enum TransactionType {
         DEPOSIT, WITHDRAWAL
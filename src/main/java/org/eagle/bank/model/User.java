@@ -30,7 +30,8 @@ public class User {
     @JoinColumn(name = "address_id", referencedColumnName = "id", nullable = false)
     private Address address;
 
-    @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true)
+    // not cascaded: removing the user would load every account; accounts are deleted through AccountDeleter
+    @OneToMany(mappedBy = "user")
     private List<BankAccount> accounts;
 
     public User() {}
@@ -0,0 +1,29 @@
+package org.eagle.bank.repository;
+
+import org.eagle.bank.model.AccountNumberRange;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface AccountNumberRangeRepository extends JpaRepository<AccountNumberRange, String> {
+
+    /**
+     * Moves the high-water mark up by {@code count}; the row stays locked until the transaction ends. Returns 0 if
+     * the prefix has no row yet.
+     */
+    @Modifying
+    @Query("update AccountNumberRange r set r.nextValue = r.nextValue + :count where r.prefix = :prefix")
+    int advance(@Param("prefix") String prefix, @Param("count") long count);
+
+    @Query("select r.nextValue from AccountNumberRange r where r.prefix = :prefix")
+    Long findNextValue(@Param("prefix") String prefix);
+
+    /**
+     * Plain insert, so a row created concurrently by another instance fails on the key instead of being merged over.
+     */
+    @Modifying
+    @Query(value = "insert into account_number_range (prefix, next_value) values (:prefix, :nextValue)",
+            nativeQuery = true)
+    void insert(@Param("prefix") String prefix, @Param("nextValue") long nextValue);
+}
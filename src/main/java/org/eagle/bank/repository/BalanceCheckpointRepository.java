@@ -0,0 +1,7 @@
+package org.eagle.bank.repository;
+
+import org.eagle.bank.model.BalanceCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface BalanceCheckpointRepository extends JpaRepository<BalanceCheckpoint, Long> {
+}
@@ -1,12 +1,100 @@
 package org.eagle.bank.repository;
 
 import org.eagle.bank.model.BankAccount;
+import org.eagle.bank.model.Transaction;
 import org.eagle.bank.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface BankAccountRepository extends JpaRepository<BankAccount, Long> {
+
+    /**
+     * An open account's stored balance next to the net amount of its transactions after a given (timestamp, id)
+     * position, read by one statement so both come from the same snapshot.
+     */
+    interface LedgerView {
+        BigDecimal getBalance();
+        BigDecimal getNetAmount();
+    }
+
     Optional<BankAccount> findByAccountNumber(String accountNumber);
+    Optional<BankAccount> findByAccountNumberAndUserId(String accountNumber, Long userId);
+    List<BankAccount> findByAccountNumberInAndUserId(Collection<String> accountNumbers, Long userId);
+    boolean existsByUserId(Long userId);
     List<BankAccount> findByUser(User user);
-} 
\ No newline at end of file
+    List<BankAccount> findByUserId(Long userId);
+
+    /**
+     * Highest account number in the given format; numbers are fixed width, so the string order is the numeric order.
+     */
+    @Query("select max(a.accountNumber) from BankAccount a where a.accountNumber like :pattern")
+    String findHighestAccountNumber(@Param("pattern") String pattern);
+
+    /**
+     * The balance of an open account; empty if the account does not exist or is closed.
+     */
+    @Query("select a.balance from BankAccount a where a.id = :id and a.closed = false")
+    Optional<BigDecimal> findBalanceById(@Param("id") Long id);
+
+    /**
+     * Compare-and-set of the balance: returns 0 if it no longer equals {@code expected} or the account was closed.
+     */
+    @Modifying
+    @Query("update BankAccount a set a.balance = :balance, a.version = a.version + 1 " +
+            "where a.id = :id and a.balance = :expected and a.closed = false")
+    int compareAndSetBalance(@Param("id") Long id, @Param("expected") BigDecimal expected,
+                             @Param("balance") BigDecimal balance);
+
+    /**
+     * Credits an open account; returns 0 if it is closed.
+     */
+    @Modifying
+    @Query("update BankAccount a set a.balance = a.balance + :amount, a.version = a.version + 1 " +
+            "where a.id = :id and a.closed = false")
+    int credit(@Param("id") Long id, @Param("amount") BigDecimal amount);
+
+    /**
+     * Debits only if the balance covers the amount; returns 0 when it does not, so the check and the write are one
+     * atomic statement. Also returns 0 if the account is closed.
+     */
+    @Modifying
+    @Query("update BankAccount a set a.balance = a.balance - :amount, a.version = a.version + 1 " +
+            "where a.id = :id and a.balance >= :amount and a.closed = false")
+    int debit(@Param("id") Long id, @Param("amount") BigDecimal amount);
+
+    @Query("select a.id from BankAccount a where a.id > :afterId and a.closed = false order by a.id")
+    List<Long> findOpenIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("select a.balance as balance, " +
+            "coalesce(sum(case when t.type = :deposit then t.amount else -t.amount end), 0) as netAmount " +
+            "from BankAccount a left join Transaction t on t.account = a " +
+            "and (t.timestamp > :afterTimestamp or (t.timestamp = :afterTimestamp and t.id > :afterId)) " +
+            "where a.id = :id and a.closed = false group by a.id, a.balance")
+    Optional<LedgerView> findLedgerView(@Param("id") Long id, @Param("afterTimestamp") Instant afterTimestamp,
+                                        @Param("afterId") Long afterId,
+                                        @Param("deposit") Transaction.TransactionType deposit);
+
+    /**
+     * Closes the account: once this commits, no posting to it can succeed. Waits for postings that have already
+     * updated the balance to commit or roll back. Returns 0 if the account does not exist.
+     */
+    @Modifying
+    @Query("update BankAccount a set a.closed = true, a.version = a.version + 1 where a.id = :id")
+    int close(@Param("id") Long id);
+
+    /**
+     * Deletes the account row without loading it; its transactions must be gone already.
+     */
+    @Modifying
+    @Query("delete from BankAccount a where a.id = :id")
+    int deleteAccountById(@Param("id") Long id);
+}
@@ -0,0 +1,33 @@
+package org.eagle.bank.repository;
+
+import org.eagle.bank.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+    Optional<IdempotencyRecord> findByUserIdAndIdempotencyKey(Long userId, String idempotencyKey);
+
+    @Transactional
+    @Modifying
+    @Query("update IdempotencyRecord r set r.responseBody = :responseBody, r.completedAt = :completedAt " +
+            "where r.userId = :userId and r.idempotencyKey = :idempotencyKey")
+    int complete(@Param("userId") Long userId, @Param("idempotencyKey") String idempotencyKey,
+                 @Param("responseBody") String responseBody, @Param("completedAt") Instant completedAt);
+
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.userId = :userId and r.idempotencyKey = :idempotencyKey " +
+            "and r.responseBody is null")
+    int deletePending(@Param("userId") Long userId, @Param("idempotencyKey") String idempotencyKey);
+
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") Instant cutoff);
+}
@@ -1,12 +1,95 @@
 package org.eagle.bank.repository;
 
+import jakarta.persistence.QueryHint;
 import org.eagle.bank.model.Transaction;
 import org.eagle.bank.model.BankAccount;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
+/**
+ * Finders whose results are mapped to responses after the transaction has ended fetch the account with them
+ * ({@code open-in-view} is off, so a lazy account would fail to load there).
+ */
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
+    @EntityGraph(attributePaths = "account")
     List<Transaction> findByAccount(BankAccount account);
+
+    @EntityGraph(attributePaths = "account")
     Optional<Transaction> findByIdAndAccount(Long id, BankAccount account);
-} 
\ No newline at end of file
+
+    @EntityGraph(attributePaths = "account")
+    List<Transaction> findByAccountOrderByTimestampDescIdDesc(BankAccount account, Pageable pageable);
+
+    @Query("select t from Transaction t where t.account = :account " +
+            "and (t.timestamp < :timestamp or (t.timestamp = :timestamp and t.id < :id)) " +
+            "order by t.timestamp desc, t.id desc")
+    @EntityGraph(attributePaths = "account")
+    List<Transaction> findPageAfter(@Param("account") BankAccount account, @Param("timestamp") Instant timestamp,
+                                    @Param("id") Long id, Pageable pageable);
+
+    // consumed inside the caller's read-only transaction, so the account can stay lazy
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select t from Transaction t where t.account = :account order by t.timestamp desc, t.id desc")
+    Stream<Transaction> streamByAccount(@Param("account") BankAccount account);
+
+    /**
+     * A transaction's place in its account's ledger, which is ordered by (timestamp, id).
+     */
+    interface LedgerPosition {
+        Instant getTimestamp();
+        Long getId();
+    }
+
+    /**
+     * The account's transactions after the given position that are older than {@code settledBefore}, newest first;
+     * fetch one to get the last settled position.
+     */
+    @Query("select t.timestamp as timestamp, t.id as id from Transaction t where t.account.id = :accountId " +
+            "and (t.timestamp > :afterTimestamp or (t.timestamp = :afterTimestamp and t.id > :afterId)) " +
+            "and t.timestamp < :settledBefore order by t.timestamp desc, t.id desc")
+    List<LedgerPosition> findSettledAfter(@Param("accountId") Long accountId,
+                                          @Param("afterTimestamp") Instant afterTimestamp,
+                                          @Param("afterId") Long afterId,
+                                          @Param("settledBefore") Instant settledBefore, Pageable pageable);
+
+    /**
+     * Net effect on the balance (deposits minus withdrawals) of the account's transactions after the {@code after}
+     * position, up to and including the {@code upTo} position.
+     */
+    @Query("select coalesce(sum(case when t.type = :deposit then t.amount else -t.amount end), 0) " +
+            "from Transaction t where t.account.id = :accountId " +
+            "and (t.timestamp > :afterTimestamp or (t.timestamp = :afterTimestamp and t.id > :afterId)) " +
+            "and (t.timestamp < :upToTimestamp or (t.timestamp = :upToTimestamp and t.id <= :upToId))")
+    BigDecimal sumNetAmount(@Param("accountId") Long accountId, @Param("afterTimestamp") Instant afterTimestamp,
+                            @Param("afterId") Long afterId, @Param("upToTimestamp") Instant upToTimestamp,
+                            @Param("upToId") Long upToId, @Param("deposit") Transaction.TransactionType deposit);
+
+    long countByAccountId(Long accountId);
+
+    /**
+     * The account's oldest transaction ids, in index order.
+     */
+    @Query("select t.id from Transaction t where t.account.id = :accountId order by t.timestamp, t.id")
+    List<Long> findIdsByAccountId(@Param("accountId") Long accountId, Pageable pageable);
+
+    @Modifying
+    @Query("delete from Transaction t where t.id in :ids")
+    int deleteByIds(@Param("ids") List<Long> ids);
+
+    @Modifying
+    @Query("delete from Transaction t where t.account.id = :accountId")
+    int deleteAllByAccountId(@Param("accountId") Long accountId);
+}
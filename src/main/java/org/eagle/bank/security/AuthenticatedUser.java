@@ -0,0 +1,10 @@
+package org.eagle.bank.security;
+
+/**
+ * Lightweight principal built once per token by {@link JwtAuthenticationFilter} and handed to controllers
+ * through {@link AuthenticatedUserArgumentResolver}, so handlers don't have to reload the user entity.
+ */
+public record AuthenticatedUser(Long userId, String username) {
+
+    public static final String REQUEST_ATTRIBUTE = AuthenticatedUser.class.getName();
+}
@@ -1,5 +1,8 @@
 package org.eagle.bank.security;
 
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -20,6 +23,7 @@ import org.springframework.context.annotation.Lazy;
 
 import java.io.IOException;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @Component
 @Slf4j
@@ -27,12 +31,32 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
     private final UserService userService;
+    private final TokenCache tokenCache;
+    private final RevocationList revocationList;
+    private final Timer cachedTimer;
+    private final Timer verifiedTimer;
+    private final Timer rejectedTimer;
+    private final Timer revokedTimer;
     private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
 
 
-    public JwtAuthenticationFilter(JwtUtil jwtUtil, @Lazy UserService userService) {
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, @Lazy UserService userService, TokenCache tokenCache,
+                                   RevocationList revocationList, MeterRegistry meterRegistry) {
         this.jwtUtil = jwtUtil;
         this.userService = userService;
+        this.tokenCache = tokenCache;
+        this.revocationList = revocationList;
+        this.cachedTimer = timer(meterRegistry, "cached");
+        this.verifiedTimer = timer(meterRegistry, "verified");
+        this.rejectedTimer = timer(meterRegistry, "rejected");
+        this.revokedTimer = timer(meterRegistry, "revoked");
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("jwt.authentication")
+                .description("Time to resolve a bearer token to a principal")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
     }
 
     @Override
@@ -41,40 +65,66 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         // Skip JWT processing for public endpoints
         String requestPath = request.getRequestURI();
-        if (requestPath.equals("/v1/users") || requestPath.equals("/v1/auth/login")) {
+        if (requestPath.equals("/v1/users") || requestPath.equals("/v1/auth/login")
+                || requestPath.equals("/v1/auth/refresh")) {
             filterChain.doFilter(request, response);
             return;
         }
         
         final String authHeader = request.getHeader("Authorization");
-        String username = null;
         String jwt = null;
 
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             jwt = authHeader.substring(7);
-            username = jwtUtil.extractUsername(jwt);
         }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = org.springframework.security.core.userdetails.User
-                    .withUsername(username)
-                    .password("")
-                    .authorities("USER")
-                    .build();
-            if (jwtUtil.validateToken(jwt, username)) {
+        if (jwt != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            long start = System.nanoTime();
+            Optional<TokenCache.VerifiedToken> cached = tokenCache.get(jwt);
+            TokenCache.VerifiedToken verified = cached.isPresent() ? cached.get() : verifyToken(jwt);
+            // checked on every request, cached or not, so a logout takes effect at once
+            boolean revoked = verified != null && revocationList.isRevoked(verified.sessionId());
+            Timer outcome = verified == null ? rejectedTimer
+                    : revoked ? revokedTimer
+                    : cached.isPresent() ? cachedTimer : verifiedTimer;
+            outcome.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (verified != null && !revoked) {
+                AuthenticatedUser principal = verified.principal();
+                UserDetails userDetails = org.springframework.security.core.userdetails.User
+                        .withUsername(principal.username())
+                        .password("")
+                        .authorities("USER")
+                        .build();
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities());
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authToken);
-                Optional<User> user = userService.getUserByUsername(username);
-               if(user.isPresent()){
-                   logger.info("Authenticated user: {}", user.get().getId());
-                   request.setAttribute("authenticatedUserId", user.get().getId());
-                } else {
-                   throw new NotLoggedInException("Authentication failed: User not found");
-               }
+                logger.debug("Authenticated user: {}", principal.userId());
+                request.setAttribute(AuthenticatedUser.REQUEST_ATTRIBUTE, principal);
             }
         }
         filterChain.doFilter(request, response);
     }
-} 
\ No newline at end of file
+
+    /**
+     * Checks the signature and expiry once, builds the principal and caches it until the token expires.
+     * Returns null when the token is not a valid access token.
+     */
+    private TokenCache.VerifiedToken verifyToken(String jwt) {
+        JwtUtil.ParsedToken parsed = jwtUtil.parse(jwt);
+        if (!parsed.isValid() || !jwtUtil.isTokenValid(parsed.claims())) {
+            logger.debug("Rejected bearer token: {}", parsed.isValid() ? "not an access token" : parsed.failure());
+            return null;
+        }
+        Claims claims = parsed.claims();
+        Optional<User> user = userService.getUserByUsername(claims.getSubject());
+        if (user.isEmpty()) {
+            throw new NotLoggedInException("Authentication failed: User not found");
+        }
+        AuthenticatedUser principal = new AuthenticatedUser(user.get().getId(), claims.getSubject());
+        TokenCache.VerifiedToken verified = new TokenCache.VerifiedToken(principal, JwtUtil.sessionId(claims),
+                claims.getExpiration().getTime());
+        tokenCache.put(jwt, verified);
+        return verified;
+    }
+}
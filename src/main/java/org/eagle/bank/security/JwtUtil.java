@@ -1,39 +1,114 @@
 package org.eagle.bank.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.UnsupportedJwtException;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SecurityException;
 import org.eagle.bank.exception.NotLoggedInException;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.Date;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Component
 public class JwtUtil {
+    public static final String CLAIM_TYPE = "typ";
+    public static final String CLAIM_SESSION = "sid";
+    public static final String CLAIM_GENERATION = "gen";
+    public static final String TYPE_ACCESS = "access";
+    public static final String TYPE_REFRESH = "refresh";
+
+    public enum Failure {
+        EXPIRED,
+        BAD_SIGNATURE,
+        MALFORMED,
+        UNSUPPORTED,
+        INVALID
+    }
+
+    /**
+     * Outcome of {@link #parse}: the verified claims, or the reason the token was rejected.
+     */
+    public record ParsedToken(Claims claims, Failure failure) {
+        static ParsedToken failed(Failure failure) {
+            return new ParsedToken(null, failure);
+        }
+
+        public boolean isValid() {
+            return failure == null;
+        }
+
+        public String subject() {
+            return claims == null ? null : claims.getSubject();
+        }
+
+        public Date expiration() {
+            return claims == null ? null : claims.getExpiration();
+        }
+    }
+
     private final SecretKey key;
-    private static final long EXPIRATION_MS = 86400000; // 1 day
+    // immutable and thread-safe once built; building one per call costs more than verifying the HMAC
+    private final JwtParser parser;
 
     public JwtUtil(@Value("${jwt.secret}") String secret) {
         this.key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parser().verifyWith(key).build();
+    }
+
+    public String generateAccessToken(String username, UUID sessionId, Instant issuedAt, Instant expiresAt) {
+        return Jwts.builder()
+                .subject(username)
+                .claim(CLAIM_TYPE, TYPE_ACCESS)
+                .claim(CLAIM_SESSION, sessionId.toString())
+                .issuedAt(Date.from(issuedAt))
+                .expiration(Date.from(expiresAt))
+                .signWith(key, SignatureAlgorithm.HS256)
+                .compact();
     }
 
-    public String generateToken(String username) {
+    /**
+     * A refresh token is good for one use; {@code generation} counts the rotations of its session.
+     */
+    public String generateRefreshToken(String username, UUID sessionId, int generation, Instant issuedAt,
+                                       Instant expiresAt) {
         return Jwts.builder()
                 .subject(username)
-                .issuedAt(new Date())
-                .expiration(new Date(System.currentTimeMillis() + EXPIRATION_MS))
+                .claim(CLAIM_TYPE, TYPE_REFRESH)
+                .claim(CLAIM_SESSION, sessionId.toString())
+                .claim(CLAIM_GENERATION, generation)
+                .issuedAt(Date.from(issuedAt))
+                .expiration(Date.from(expiresAt))
                 .signWith(key, SignatureAlgorithm.HS256)
                 .compact();
     }
 
     public boolean validateToken(String token, String username) {
-        final String extractedUsername = extractUsername(token);
-        return (extractedUsername.equals(username) && !isTokenExpired(token));
+        ParsedToken parsed = parse(token);
+        return parsed.isValid() && username.equals(parsed.subject());
+    }
+
+    /**
+     * Whether the claims belong to an unexpired access token; refresh tokens are not accepted for API calls.
+     */
+    public boolean isTokenValid(Claims claims) {
+        return claims.getSubject() != null && claims.getExpiration() != null && !claims.getExpiration().before(new Date())
+                && TYPE_ACCESS.equals(claims.get(CLAIM_TYPE, String.class)) && claims.get(CLAIM_SESSION) != null;
+    }
+
+    public static UUID sessionId(Claims claims) {
+        return UUID.fromString(claims.get(CLAIM_SESSION, String.class));
     }
 
     public String extractUsername(String token) {
@@ -50,20 +125,33 @@ public class JwtUtil {
     }
 
     public Claims extractAllClaims(String token) {
-        Claims claims = null;
-        try {
-            claims = Jwts.parser()
-                    .verifyWith(key)
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
-            return  claims;
-        } catch (Exception e) {
+        ParsedToken parsed = parse(token);
+        if (!parsed.isValid()) {
             throw new NotLoggedInException("User nor logged in or token is invalid");
         }
+        return parsed.claims();
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    /**
+     * Verifies the signature and expiry of a token once and returns its claims, or the reason it was rejected.
+     * Never throws for a bad token.
+     */
+    public ParsedToken parse(String token) {
+        if (token == null || token.isBlank()) {
+            return ParsedToken.failed(Failure.MALFORMED);
+        }
+        try {
+            return new ParsedToken(parser.parseSignedClaims(token).getPayload(), null);
+        } catch (ExpiredJwtException e) {
+            return ParsedToken.failed(Failure.EXPIRED);
+        } catch (SecurityException e) {
+            return ParsedToken.failed(Failure.BAD_SIGNATURE);
+        } catch (MalformedJwtException | IllegalArgumentException e) {
+            return ParsedToken.failed(Failure.MALFORMED);
+        } catch (UnsupportedJwtException e) {
+            return ParsedToken.failed(Failure.UNSUPPORTED);
+        } catch (JwtException e) {
+            return ParsedToken.failed(Failure.INVALID);
+        }
     }
-} 
\ No newline at end of file
+}
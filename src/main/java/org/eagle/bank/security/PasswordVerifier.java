@@ -0,0 +1,109 @@
+package org.eagle.bank.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs BCrypt password checks on a pool sized to the CPU, so a burst of logins cannot take CPU from every other
+ * endpoint. Admission is bounded twice. A full queue rejects straight away. A check that has waited in the queue
+ * longer than {@code max-queue-wait} is dropped without hashing, since its client has most likely given up. Both
+ * surface as {@link RejectedExecutionException}, which the API reports as 503.
+ * <p>
+ * Unknown usernames are checked against a dummy hash of the same cost, so the response time does not reveal
+ * whether an account exists.
+ */
+@Component
+public class PasswordVerifier {
+
+    private final PasswordEncoder passwordEncoder;
+    private final String dummyHash;
+    private final long maxQueueWaitNanos;
+    private final ThreadPoolExecutor executor;
+    private final Timer waitTimer;
+    private final Timer verifyTimer;
+    private final Counter rejected;
+
+    public PasswordVerifier(PasswordEncoder passwordEncoder, MeterRegistry meterRegistry,
+                            @Value("${security.password-verifier.threads:0}") int threads,
+                            @Value("${security.password-verifier.queue-capacity:64}") int queueCapacity,
+                            @Value("${security.password-verifier.max-queue-wait:PT2S}") Duration maxQueueWait) {
+        this.passwordEncoder = passwordEncoder;
+        this.dummyHash = passwordEncoder.encode(UUID.randomUUID().toString());
+        this.maxQueueWaitNanos = maxQueueWait.toNanos();
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger created = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-verifier-" + created.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        Gauge.builder("password.verify.queue.size", executor, pool -> pool.getQueue().size())
+                .description("Password checks waiting for a thread")
+                .register(meterRegistry);
+        Gauge.builder("password.verify.active", executor, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("password.verify.wait")
+                .description("Time a password check spent queued")
+                .register(meterRegistry);
+        this.verifyTimer = Timer.builder("password.verify")
+                .description("Time spent hashing a password check")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("password.verify.rejected")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Completes with whether the password matches; {@code encodedPassword} null means the user does not exist.
+     *
+     * @throws RejectedExecutionException if the queue is full
+     */
+    public CompletableFuture<Boolean> matches(String rawPassword, String encodedPassword) {
+        long queuedAt = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> check(rawPassword, encodedPassword, queuedAt), executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw e;
+        }
+    }
+
+    private boolean check(String rawPassword, String encodedPassword, long queuedAt) {
+        long waited = System.nanoTime() - queuedAt;
+        waitTimer.record(waited, TimeUnit.NANOSECONDS);
+        if (waited > maxQueueWaitNanos) {
+            rejected.increment();
+            throw new RejectedExecutionException("Password check waited too long for a thread");
+        }
+        return verifyTimer.record(() -> {
+            if (encodedPassword == null) {
+                // same cost as a real check; the result is irrelevant
+                passwordEncoder.matches(rawPassword, dummyHash);
+                return false;
+            }
+            return passwordEncoder.matches(rawPassword, encodedPassword);
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
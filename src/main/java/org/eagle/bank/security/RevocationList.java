@@ -0,0 +1,118 @@
+package org.eagle.bank.security;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * In-memory state of login sessions that have rotated a refresh token or been revoked. Sessions that have done
+ * neither are not stored. Each entry is the session id plus the lowest refresh-token generation still accepted;
+ * a revoked session accepts none. Entries sit in one-minute buckets by the time the session expires, and purging
+ * drops whole buckets once they have passed, so the list never holds a session past its end.
+ * <p>
+ * The list is per instance: behind a load balancer, a logout only takes effect on the instance that served it.
+ * It is also memory only, so a restart forgets every rotation and logout: until its session ends, any refresh
+ * token issued before the restart is accepted again, including ones already used or logged out. That window is
+ * {@code jwt.refresh-ttl}, which is kept short for this reason.
+ */
+@Component
+public class RevocationList {
+
+    static final long BUCKET_MILLIS = 60_000;
+    private static final int REVOKED = Integer.MAX_VALUE;
+
+    private record Entry(int minGeneration, long bucket) {
+    }
+
+    private final Clock clock;
+    private final Map<UUID, Entry> sessions = new ConcurrentHashMap<>();
+    private final NavigableMap<Long, Queue<UUID>> buckets = new ConcurrentSkipListMap<>();
+
+    @Autowired
+    public RevocationList() {
+        this(Clock.systemUTC());
+    }
+
+    RevocationList(Clock clock) {
+        this.clock = clock;
+    }
+
+    public boolean isRevoked(UUID sessionId) {
+        Entry entry = sessions.get(sessionId);
+        return entry != null && entry.minGeneration() == REVOKED;
+    }
+
+    /**
+     * Accepts refresh-token generation {@code generation} of a session at most once. Returns true and moves the
+     * session on to the next generation, or returns false if the generation was already used or the session is
+     * revoked. Presenting an already used generation means the token was copied, so the whole session is revoked.
+     */
+    public boolean rotate(UUID sessionId, int generation, long sessionExpiresAtMillis) {
+        long bucket = bucketOf(sessionExpiresAtMillis);
+        AtomicBoolean accepted = new AtomicBoolean();
+        AtomicBoolean moved = new AtomicBoolean();
+        sessions.compute(sessionId, (id, entry) -> {
+            moved.set(entry == null || entry.bucket() != bucket);
+            int min = entry == null ? 0 : entry.minGeneration();
+            if (generation < min) {
+                return new Entry(REVOKED, bucket);
+            }
+            accepted.set(true);
+            return new Entry(generation + 1, bucket);
+        });
+        if (moved.get()) {
+            track(sessionId, bucket);
+        }
+        return accepted.get();
+    }
+
+    public void revoke(UUID sessionId, long untilMillis) {
+        long bucket = bucketOf(untilMillis);
+        AtomicBoolean moved = new AtomicBoolean();
+        sessions.compute(sessionId, (id, entry) -> {
+            long keep = entry == null ? bucket : Math.max(entry.bucket(), bucket);
+            moved.set(entry == null || entry.bucket() != keep);
+            return new Entry(REVOKED, keep);
+        });
+        if (moved.get()) {
+            track(sessionId, bucket);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.purge-interval:PT1M}")
+    public void purgeExpired() {
+        long current = bucketOf(clock.millis());
+        Map<Long, Queue<UUID>> expired = buckets.headMap(current);
+        for (Map.Entry<Long, Queue<UUID>> bucket : expired.entrySet()) {
+            for (UUID sessionId : bucket.getValue()) {
+                // an entry that moved to a later bucket stays
+                sessions.computeIfPresent(sessionId,
+                        (id, entry) -> entry.bucket() == bucket.getKey() ? null : entry);
+            }
+        }
+        expired.clear();
+    }
+
+    int size() {
+        return sessions.size();
+    }
+
+    private void track(UUID sessionId, long bucket) {
+        buckets.computeIfAbsent(bucket, b -> new ConcurrentLinkedQueue<>()).add(sessionId);
+    }
+
+    private static long bucketOf(long millis) {
+        // round up, so an entry outlives its session by less than a bucket and never falls short of it
+        return Math.floorDiv(millis, BUCKET_MILLIS) + 1;
+    }
+}
@@ -1,6 +1,9 @@
 package org.eagle.bank.security;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -9,7 +12,10 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
 
 @Configuration
 public class SecurityConfig {
@@ -25,7 +31,11 @@ public class SecurityConfig {
         http
             .csrf(csrf -> csrf.disable())
             .authorizeHttpRequests(auth -> auth
-                .requestMatchers("/v1/users", "/v1/auth/login").permitAll()
+                // async dispatches resume a request that was already authorised on its initial dispatch
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                .requestMatchers("/v1/users", "/v1/auth/login", "/v1/auth/refresh").permitAll()
+                // actuator is served on the loopback-only management port
+                .requestMatchers(EndpointRequest.toAnyEndpoint()).permitAll()
                 .anyRequest().authenticated()
             )
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
@@ -38,8 +48,17 @@ public class SecurityConfig {
         return config.getAuthenticationManager();
     }
 
+    /**
+     * With a target verify time the BCrypt cost is calibrated at startup, never below {@code strength}; without one,
+     * {@code strength} is used as is.
+     */
     @Bean
-    public BCryptPasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${security.bcrypt.strength:10}") int strength,
+                                           @Value("${security.bcrypt.max-strength:14}") int maxStrength,
+                                           @Value("${security.bcrypt.target-verify-time:}") String targetVerifyTime) {
+        int tuned = StringUtils.hasText(targetVerifyTime)
+                ? TunedPasswordEncoder.calibrate(Duration.parse(targetVerifyTime), strength, maxStrength)
+                : strength;
+        return new TunedPasswordEncoder(tuned);
     }
 } 
\ No newline at end of file
@@ -0,0 +1,38 @@
+package org.eagle.bank.security;
+
+import org.eagle.bank.util.ExpiringCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Remembers tokens whose signature has already been verified, together with the principal they resolve to,
+ * so repeat requests with the same bearer token skip both the HMAC check and the user lookup.
+ * Entries expire with the token itself and are dropped when the user is deleted.
+ */
+@Component
+public class TokenCache {
+
+    public record VerifiedToken(AuthenticatedUser principal, UUID sessionId, long expiresAtMillis) {
+    }
+
+    private final ExpiringCache<String, VerifiedToken> cache;
+
+    public TokenCache(@Value("${jwt.cache.max-size:10000}") int maxSize) {
+        this.cache = new ExpiringCache<>(maxSize);
+    }
+
+    public Optional<VerifiedToken> get(String token) {
+        return cache.get(token);
+    }
+
+    public void put(String token, VerifiedToken verifiedToken) {
+        cache.put(token, verifiedToken, verifiedToken.expiresAtMillis());
+    }
+
+    public void evictUser(Long userId) {
+        cache.invalidateIf(verified -> verified.principal().userId().equals(userId));
+    }
+}
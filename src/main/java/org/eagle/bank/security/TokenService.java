@@ -0,0 +1,90 @@
+package org.eagle.bank.security;
+
+import io.jsonwebtoken.Claims;
+import org.eagle.bank.exception.NotLoggedInException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Issues short-lived access tokens with rotating refresh tokens. A login starts a session that ends
+ * {@code jwt.refresh-ttl} later whatever happens; each refresh trades the presented refresh token for a new pair in
+ * the same session. Refresh never reads the database. The signature proves the token, and {@link RevocationList}
+ * rejects reused or logged-out sessions, for as long as the instance that saw them keeps running.
+ */
+@Service
+public class TokenService {
+
+    public record TokenPair(String accessToken, String refreshToken, long expiresInSeconds) {
+    }
+
+    private final JwtUtil jwtUtil;
+    private final RevocationList revocationList;
+    private final Duration accessTtl;
+    private final Duration refreshTtl;
+
+    public TokenService(JwtUtil jwtUtil, RevocationList revocationList,
+                        @Value("${jwt.access-ttl:PT15M}") Duration accessTtl,
+                        @Value("${jwt.refresh-ttl:P1D}") Duration refreshTtl) {
+        this.jwtUtil = jwtUtil;
+        this.revocationList = revocationList;
+        this.accessTtl = accessTtl;
+        this.refreshTtl = refreshTtl;
+    }
+
+    public TokenPair issue(String username) {
+        Instant now = Instant.now();
+        return pair(username, UUID.randomUUID(), 0, now, now.plus(refreshTtl));
+    }
+
+    /**
+     * Returns a new pair for a valid, unused refresh token, or empty if the token is invalid, expired, already
+     * used or its session was revoked. Using a token twice revokes its session.
+     */
+    public Optional<TokenPair> refresh(String refreshToken) {
+        JwtUtil.ParsedToken parsed = jwtUtil.parse(refreshToken);
+        if (!parsed.isValid()) {
+            return Optional.empty();
+        }
+        Claims claims = parsed.claims();
+        Integer generation = claims.get(JwtUtil.CLAIM_GENERATION, Integer.class);
+        if (!JwtUtil.TYPE_REFRESH.equals(claims.get(JwtUtil.CLAIM_TYPE, String.class)) || generation == null
+                || claims.getSubject() == null || claims.get(JwtUtil.CLAIM_SESSION) == null) {
+            return Optional.empty();
+        }
+        UUID sessionId = JwtUtil.sessionId(claims);
+        Instant sessionEnd = claims.getExpiration().toInstant();
+        if (!revocationList.rotate(sessionId, generation, sessionEnd.toEpochMilli())) {
+            return Optional.empty();
+        }
+        return Optional.of(pair(claims.getSubject(), sessionId, generation + 1, Instant.now(), sessionEnd));
+    }
+
+    /**
+     * Ends the session of the given access token, invalidating its access and refresh tokens.
+     */
+    public void logout(String accessToken) {
+        Claims claims = jwtUtil.extractAllClaims(accessToken);
+        if (!jwtUtil.isTokenValid(claims)) {
+            throw new NotLoggedInException("User nor logged in or token is invalid");
+        }
+        // no session outlives its login by more than the refresh TTL
+        revocationList.revoke(JwtUtil.sessionId(claims), Instant.now().plus(refreshTtl).toEpochMilli());
+    }
+
+    public boolean isRevoked(UUID sessionId) {
+        return revocationList.isRevoked(sessionId);
+    }
+
+    private TokenPair pair(String username, UUID sessionId, int generation, Instant now, Instant sessionEnd) {
+        Instant accessExpiry = now.plus(accessTtl).isBefore(sessionEnd) ? now.plus(accessTtl) : sessionEnd;
+        return new TokenPair(
+                jwtUtil.generateAccessToken(username, sessionId, now, accessExpiry),
+                jwtUtil.generateRefreshToken(username, sessionId, generation, now, sessionEnd),
+                Duration.between(now, accessExpiry).toSeconds());
+    }
+}
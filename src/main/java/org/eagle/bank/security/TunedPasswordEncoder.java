@@ -0,0 +1,93 @@
+package org.eagle.bank.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Password encoder whose hashes record their own algorithm and cost, e.g. {@code {bcrypt}$2a$12$...}. This lets the
+ * BCrypt cost change per deployment without resetting passwords. {@link #upgradeEncoding} flags every hash whose
+ * algorithm or cost differs from the current setting, and {@code UserService} rehashes those on the next
+ * successful login. Hashes stored before the prefix existed are read as BCrypt and flagged for upgrade.
+ */
+@Slf4j
+public class TunedPasswordEncoder implements PasswordEncoder {
+
+    static final String BCRYPT = "bcrypt";
+    private static final String PREFIX = "{" + BCRYPT + "}";
+    private static final Pattern BCRYPT_COST = Pattern.compile("\\$2[abxy]?\\$(\\d{2})\\$");
+    private static final String CALIBRATION_PASSWORD = "calibration password";
+    private static final int CALIBRATION_ROUNDS = 5;
+
+    private final int strength;
+    private final DelegatingPasswordEncoder delegate;
+
+    public TunedPasswordEncoder(int strength) {
+        this.strength = strength;
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(strength);
+        this.delegate = new DelegatingPasswordEncoder(BCRYPT, Map.of(BCRYPT, bcrypt));
+        this.delegate.setDefaultPasswordEncoderForMatches(bcrypt);
+    }
+
+    /**
+     * Times a BCrypt check at {@code minStrength} on this machine and returns the highest cost, up to
+     * {@code maxStrength}, whose check is estimated to take no longer than {@code target}. Each step up in cost
+     * doubles the work, so only the cheapest cost is measured. The result is never below {@code minStrength}.
+     */
+    public static int calibrate(Duration target, int minStrength, int maxStrength) {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(minStrength);
+        String hash = probe.encode(CALIBRATION_PASSWORD);
+        long fastest = Long.MAX_VALUE;
+        for (int i = 0; i < CALIBRATION_ROUNDS; i++) {
+            long start = System.nanoTime();
+            probe.matches(CALIBRATION_PASSWORD, hash);
+            fastest = Math.min(fastest, System.nanoTime() - start);
+        }
+        int strength = strengthFor(fastest, minStrength, maxStrength, target);
+        log.info("BCrypt cost {} takes {} ms here; using cost {} for a {} ms target", minStrength,
+                fastest / 1_000_000, strength, target.toMillis());
+        return strength;
+    }
+
+    static int strengthFor(long nanosAtMinStrength, int minStrength, int maxStrength, Duration target) {
+        int strength = minStrength;
+        long estimate = nanosAtMinStrength;
+        while (strength < maxStrength && estimate * 2 <= target.toNanos()) {
+            strength++;
+            estimate *= 2;
+        }
+        return strength;
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return delegate.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return delegate.matches(rawPassword, encodedPassword);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.isEmpty()) {
+            return false;
+        }
+        if (!encodedPassword.startsWith(PREFIX)) {
+            return true;
+        }
+        Matcher cost = BCRYPT_COST.matcher(encodedPassword).region(PREFIX.length(), encodedPassword.length());
+        return !cost.lookingAt() || Integer.parseInt(cost.group(1)) != strength;
+    }
+}
@@ -0,0 +1,120 @@
+package org.eagle.bank.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.eagle.bank.model.AccountSnapshot;
+import org.eagle.bank.model.BankAccount;
+import org.eagle.bank.util.ExpiringCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache of {@link AccountSnapshot}s, by account number and by owning user.
+ * <p>
+ * A load races with writes: a reader can fetch a row just before a posting commits and store it just after the
+ * invalidation. To rule that out, every invalidation bumps a generation counter for the key's stripe. A reader
+ * notes the generation before loading, and drops what it stored if the generation moved in the meantime.
+ */
+@Component
+public class AccountCache {
+
+    private static final int STRIPES = 1024;
+
+    private final ExpiringCache<String, AccountSnapshot> byNumber;
+    private final ExpiringCache<Long, List<AccountSnapshot>> byUser;
+    private final Duration ttl;
+    private final AtomicLongArray generations = new AtomicLongArray(STRIPES);
+
+    public AccountCache(@Value("${accounts.cache.max-size:10000}") int maxSize,
+                        @Value("${accounts.cache.ttl:PT5M}") Duration ttl,
+                        MeterRegistry meterRegistry) {
+        this.byNumber = new ExpiringCache<>(maxSize);
+        this.byUser = new ExpiringCache<>(maxSize);
+        this.ttl = ttl;
+        bindMetrics(meterRegistry, "accounts.byNumber", byNumber);
+        bindMetrics(meterRegistry, "accounts.byUser", byUser);
+    }
+
+    public Optional<AccountSnapshot> getByNumber(String accountNumber, Supplier<Optional<AccountSnapshot>> loader) {
+        Optional<AccountSnapshot> cached = byNumber.get(accountNumber);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        int stripe = stripe(accountNumber);
+        long generation = generations.get(stripe);
+        Optional<AccountSnapshot> loaded = loader.get();
+        loaded.ifPresent(snapshot -> {
+            byNumber.put(accountNumber, snapshot, ttl);
+            if (generations.get(stripe) != generation) {
+                byNumber.invalidate(accountNumber);
+            }
+        });
+        return loaded;
+    }
+
+    public List<AccountSnapshot> getByUser(Long userId, Supplier<List<AccountSnapshot>> loader) {
+        Optional<List<AccountSnapshot>> cached = byUser.get(userId);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        int stripe = stripe(userId);
+        long generation = generations.get(stripe);
+        List<AccountSnapshot> loaded = List.copyOf(loader.get());
+        byUser.put(userId, loaded, ttl);
+        if (generations.get(stripe) != generation) {
+            byUser.invalidate(userId);
+        }
+        return loaded;
+    }
+
+    /**
+     * Drops the account's entries once the surrounding transaction commits, or right away if there is none, so a
+     * reader never re-caches the state from before the write.
+     */
+    public void invalidateAfterCommit(BankAccount account) {
+        String accountNumber = account.getAccountNumber();
+        Long userId = account.getUser().getId();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate(accountNumber, userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidate(accountNumber, userId);
+            }
+        });
+    }
+
+    public void invalidate(String accountNumber, Long userId) {
+        generations.incrementAndGet(stripe(accountNumber));
+        generations.incrementAndGet(stripe(userId));
+        byNumber.invalidate(accountNumber);
+        byUser.invalidate(userId);
+    }
+
+    private static int stripe(Object key) {
+        return Math.floorMod(key.hashCode(), STRIPES);
+    }
+
+    private static void bindMetrics(MeterRegistry registry, String name, ExpiringCache<?, ?> cache) {
+        FunctionCounter.builder("cache.gets", cache, ExpiringCache::hitCount)
+                .tags("cache", name, "result", "hit")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", cache, ExpiringCache::missCount)
+                .tags("cache", name, "result", "miss")
+                .register(registry);
+        Gauge.builder("cache.size", cache, ExpiringCache::size)
+                .tag("cache", name)
+                .register(registry);
+    }
+}
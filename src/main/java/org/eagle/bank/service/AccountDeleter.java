@@ -0,0 +1,79 @@
+package org.eagle.bank.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.eagle.bank.repository.BalanceCheckpointRepository;
+import org.eagle.bank.repository.BankAccountRepository;
+import org.eagle.bank.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Deletes an account with its transactions using set-based statements, without loading any of them.
+ * <p>
+ * The account is closed first, in a transaction of its own: from its commit on, postings to the account are refused
+ * and the ledger verifier leaves it alone, so its history can only shrink. The history is then deleted oldest first,
+ * a chunk of ids per database transaction, so neither the persistence context nor a single transaction grows with
+ * the account's age, and progress is logged after every chunk. The last transaction removes the checkpoint and the
+ * account. A deletion that fails part-way leaves a closed account with some of its oldest transactions gone; running
+ * it again finishes the job.
+ */
+@Slf4j
+@Component
+public class AccountDeleter {
+
+    private final TransactionRepository transactionRepository;
+    private final BankAccountRepository accountRepository;
+    private final BalanceCheckpointRepository checkpointRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    @Autowired
+    public AccountDeleter(TransactionRepository transactionRepository, BankAccountRepository accountRepository,
+                          BalanceCheckpointRepository checkpointRepository, PlatformTransactionManager transactionManager,
+                          @Value("${accounts.delete.chunk-size:1000}") int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+        this.transactionRepository = transactionRepository;
+        this.accountRepository = accountRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // each chunk commits on its own, even when called from a transactional method
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Deletes the account and its transactions; returns the number of transactions deleted.
+     */
+    public long delete(Long accountId) {
+        if (transactionTemplate.execute(status -> accountRepository.close(accountId)) == 0) {
+            return 0;
+        }
+        long total = transactionRepository.countByAccountId(accountId);
+        long deleted = 0;
+        List<Long> ids;
+        do {
+            ids = transactionRepository.findIdsByAccountId(accountId, PageRequest.of(0, chunkSize));
+            if (!ids.isEmpty()) {
+                List<Long> chunk = ids;
+                deleted += transactionTemplate.execute(status -> transactionRepository.deleteByIds(chunk));
+                log.info("Deleting account {}: {} of {} transactions removed", accountId, deleted, total);
+            }
+        } while (ids.size() == chunkSize);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            checkpointRepository.deleteById(accountId);
+            accountRepository.deleteAccountById(accountId);
+        });
+        log.info("Deleted account {} with {} transactions", accountId, deleted);
+        return deleted;
+    }
+}
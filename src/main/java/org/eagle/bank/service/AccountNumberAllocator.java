@@ -0,0 +1,104 @@
+package org.eagle.bank.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.eagle.bank.repository.AccountNumberRangeRepository;
+import org.eagle.bank.repository.BankAccountRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands out account numbers ({@code 02} + 6 digits) without collisions.
+ * <p>
+ * Accounts opened before numbers were allocated were drawn at random from the whole {@code 01} range, so there is no
+ * free run above them to count up from. Allocated numbers use their own prefix, which only this allocator issues.
+ * <p>
+ * Numbers are reserved a block at a time by moving a shared high-water mark up in its own committed transaction,
+ * then handed out from memory. Instances never get overlapping blocks, so no number is issued twice and nothing is
+ * retried on a unique violation. A crash or restart only leaves the unused rest of a block as a gap.
+ */
+@Slf4j
+@Service
+public class AccountNumberAllocator {
+
+    static final String PREFIX = "02";
+    static final long MAX_NUMBER = 999_999;
+
+    private final AccountNumberRangeRepository rangeRepository;
+    private final BankAccountRepository accountRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int blockSize;
+    // not synchronized: reserving a block does I/O, which would pin a virtual thread
+    private final ReentrantLock lock = new ReentrantLock();
+    private long next;
+    private long limit;
+
+    @Autowired
+    public AccountNumberAllocator(AccountNumberRangeRepository rangeRepository, BankAccountRepository accountRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${accounts.number-block-size:100}") int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("blockSize must be positive");
+        }
+        this.rangeRepository = rangeRepository;
+        this.accountRepository = accountRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // the block must be committed before any of it is handed out, whatever transaction the caller is in
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.blockSize = blockSize;
+    }
+
+    public String allocate() {
+        lock.lock();
+        try {
+            if (next == limit) {
+                reserveBlock();
+            }
+            return String.format("%s%06d", PREFIX, next++);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void reserveBlock() {
+        Long end = transactionTemplate.execute(status -> advance());
+        if (end == null) {
+            seed();
+            end = transactionTemplate.execute(status -> advance());
+            if (end == null) {
+                throw new IllegalStateException("Account number range " + PREFIX + " is missing");
+            }
+        }
+        long start = end - blockSize;
+        if (start > MAX_NUMBER) {
+            throw new IllegalStateException("Account numbers with prefix " + PREFIX + " are exhausted");
+        }
+        next = start;
+        limit = Math.min(end, MAX_NUMBER + 1);
+        log.debug("Reserved account numbers {} to {}", start, limit - 1);
+    }
+
+    private Long advance() {
+        return rangeRepository.advance(PREFIX, blockSize) == 0 ? null : rangeRepository.findNextValue(PREFIX);
+    }
+
+    /**
+     * Creates the high-water mark above the highest number already allocated with the prefix (the migration does
+     * this for a managed schema). If another instance creates it first, its row is used.
+     */
+    private void seed() {
+        String highest = accountRepository.findHighestAccountNumber(PREFIX + "______");
+        long start = highest == null ? 1 : Long.parseLong(highest.substring(PREFIX.length())) + 1;
+        try {
+            transactionTemplate.executeWithoutResult(status -> rangeRepository.insert(PREFIX, start));
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Account number range {} was created concurrently", PREFIX);
+        }
+    }
+}
@@ -1,29 +1,63 @@
 package org.eagle.bank.service;
 
+import io.micrometer.core.annotation.Timed;
+import org.eagle.bank.model.AccountSnapshot;
+import org.eagle.bank.model.BalanceCheckpoint;
 import org.eagle.bank.model.BankAccount;
 import org.eagle.bank.model.User;
+import org.eagle.bank.repository.BalanceCheckpointRepository;
 import org.eagle.bank.repository.BankAccountRepository;
 import org.eagle.bank.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
+@Timed("service.invocations")
 public class BankAccountService {
 
     private final BankAccountRepository accountRepository;
     private final UserRepository userRepository;
+    private final BalanceCheckpointRepository checkpointRepository;
+    private final AccountCache accountCache;
+    private final AccountNumberAllocator accountNumberAllocator;
+    private final AccountDeleter accountDeleter;
+    private final String sortCode;
 
     @Autowired
-    public BankAccountService(BankAccountRepository accountRepository, UserRepository userRepository) {
+    public BankAccountService(BankAccountRepository accountRepository, UserRepository userRepository,
+                              BalanceCheckpointRepository checkpointRepository, AccountCache accountCache,
+                              AccountNumberAllocator accountNumberAllocator, AccountDeleter accountDeleter,
+                              @Value("${accounts.sort-code:10-10-20}") String sortCode) {
         this.accountRepository = accountRepository;
         this.userRepository = userRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.accountCache = accountCache;
+        this.accountNumberAllocator = accountNumberAllocator;
+        this.accountDeleter = accountDeleter;
+        this.sortCode = sortCode;
     }
 
+    /**
+     * Opens the account under a newly allocated number at this branch's sort code. The account and its opening
+     * checkpoint commit together.
+     */
+    @Transactional
     public BankAccount createAccount(BankAccount account) {
-        return accountRepository.save(account);
+        account.setAccountNumber(accountNumberAllocator.allocate());
+        account.setSortCode(sortCode);
+        BankAccount created = accountRepository.save(account);
+        // The opening balance is not backed by a transaction, so the ledger verifier starts from this checkpoint
+        checkpointRepository.save(BalanceCheckpoint.opening(created));
+        accountCache.invalidateAfterCommit(created);
+        return created;
     }
 
     public Optional<BankAccount> getAccountById(Long id) {
@@ -34,15 +68,65 @@ public class BankAccountService {
         return accountRepository.findByAccountNumber(accountNumber);
     }
 
+    /**
+     * Looks up an account only if it belongs to the given user, verifying ownership in the same indexed query.
+     */
+    public Optional<BankAccount> getUserAccount(String accountNumber, Long userId) {
+        return accountRepository.findByAccountNumberAndUserId(accountNumber, userId);
+    }
+
+    /**
+     * Cached, read-only view of an account owned by the user, for endpoints that only display it. Use
+     * {@link #getUserAccount} when the account is going to be modified.
+     */
+    public Optional<AccountSnapshot> getAccountSnapshot(String accountNumber, Long userId) {
+        return accountCache.getByNumber(accountNumber,
+                        () -> accountRepository.findByAccountNumber(accountNumber).map(AccountSnapshot::of))
+                .filter(snapshot -> snapshot.userId().equals(userId));
+    }
+
+    /**
+     * Cached, read-only views of all accounts of the user.
+     */
+    public List<AccountSnapshot> getAccountSnapshotsByUserId(Long userId) {
+        return accountCache.getByUser(userId,
+                () -> accountRepository.findByUserId(userId).stream().map(AccountSnapshot::of).toList());
+    }
+
+    /**
+     * Resolves several account numbers at once, keeping only those owned by the user, keyed by account number.
+     */
+    public Map<String, BankAccount> getUserAccounts(Collection<String> accountNumbers, Long userId) {
+        Map<String, BankAccount> accounts = new HashMap<>();
+        for (BankAccount account : accountRepository.findByAccountNumberInAndUserId(accountNumbers, userId)) {
+            accounts.put(account.getAccountNumber(), account);
+        }
+        return accounts;
+    }
+
+    public boolean hasAccounts(Long userId) {
+        return accountRepository.existsByUserId(userId);
+    }
+
     public List<BankAccount> getAccountsByUser(User user) {
         return accountRepository.findByUser(user);
     }
 
+    public List<BankAccount> getAccountsByUserId(Long userId) {
+        return accountRepository.findByUserId(userId);
+    }
+
     public BankAccount updateAccount(BankAccount account) {
-        return accountRepository.save(account);
+        BankAccount updated = accountRepository.save(account);
+        accountCache.invalidateAfterCommit(updated);
+        return updated;
     }
 
-    public void deleteAccount(Long id) {
-        accountRepository.deleteById(id);
+    /**
+     * Deletes the account and its transactions in chunks; see {@link AccountDeleter}.
+     */
+    public void deleteAccount(BankAccount account) {
+        accountDeleter.delete(account.getId());
+        accountCache.invalidateAfterCommit(account);
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,237 @@
+package org.eagle.bank.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.eagle.bank.dto.TransactionResponse;
+import org.eagle.bank.model.IdempotencyRecord;
+import org.eagle.bank.model.Transaction;
+import org.eagle.bank.repository.IdempotencyRecordRepository;
+import org.eagle.bank.util.ExpiringCache;
+import org.eagle.bank.util.MapperUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.*;
+
+/**
+ * Deduplicates transaction creation by the client's Idempotency-Key, scoped per user.
+ * <p>
+ * Completed responses are served from a bounded in-memory cache, so a replay normally costs a hash lookup and no
+ * database read. Concurrent duplicates within this instance wait on the original request's future. Only a key this
+ * instance has not seen goes to the database: it is claimed with a single insert, and the unique constraint on
+ * (user, key) turns a replay after a restart, or one routed to another instance, into a read of the stored response.
+ * <p>
+ * The stored response is written by the ledger writer in the same database transaction as the posting, so a posting
+ * is never committed without it. What a crash can still leave behind is a claim with no posting: the row stays
+ * pending, retries with that key get a 409 until it expires after the TTL, and a retry after that posts once.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+
+    public record Key(Long userId, String idempotencyKey) {
+    }
+
+    public enum Outcome {
+        /** The caller owns the key and must finish with {@link #complete} or {@link #release}. */
+        ACQUIRED,
+        /** A stored response exists; return it without posting. */
+        REPLAY,
+        /** The original request is still running; {@code inFlight} is set if it runs in this instance. */
+        IN_PROGRESS,
+        /** The key was already used for a different request. */
+        MISMATCH
+    }
+
+    public record Claim(Outcome outcome, TransactionResponse response,
+                        CompletableFuture<Optional<TransactionResponse>> inFlight) {
+    }
+
+    private record Completed(String fingerprint, TransactionResponse response) {
+    }
+
+    private record Pending(String fingerprint, CompletableFuture<Optional<TransactionResponse>> result) {
+    }
+
+    private final IdempotencyRecordRepository repository;
+    private final ObjectMapper objectMapper;
+    private final Clock clock;
+    private final Duration ttl;
+    private final ExpiringCache<Key, Completed> completed;
+    private final ConcurrentHashMap<Key, Pending> inFlight = new ConcurrentHashMap<>();
+    // releases are deleted off the request/lane threads; if this falls behind, the claim is left to expire
+    private final ExecutorService writer;
+
+    @Autowired
+    public IdempotencyService(IdempotencyRecordRepository repository, ObjectMapper objectMapper,
+                              @Value("${idempotency.cache.max-size:100000}") int maxSize,
+                              @Value("${idempotency.ttl:PT24H}") Duration ttl) {
+        this(repository, objectMapper, maxSize, ttl, Clock.systemUTC());
+    }
+
+    IdempotencyService(IdempotencyRecordRepository repository, ObjectMapper objectMapper, int maxSize, Duration ttl,
+                       Clock clock) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+        this.ttl = ttl;
+        this.completed = new ExpiringCache<>(maxSize, clock);
+        this.writer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(10_000),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "idempotency-writer");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public Claim claim(Long userId, String idempotencyKey, String fingerprint) {
+        Key key = new Key(userId, idempotencyKey);
+        Optional<Completed> hit = completed.get(key);
+        if (hit.isPresent()) {
+            return replay(hit.get(), fingerprint);
+        }
+        Pending mine = new Pending(fingerprint, new CompletableFuture<>());
+        Pending running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            return running.fingerprint().equals(fingerprint)
+                    ? new Claim(Outcome.IN_PROGRESS, null, running.result())
+                    : new Claim(Outcome.MISMATCH, null, null);
+        }
+        // the original may have completed between the cache check and taking the in-flight slot
+        hit = completed.get(key);
+        if (hit.isPresent()) {
+            inFlight.remove(key, mine);
+            return replay(hit.get(), fingerprint);
+        }
+        try {
+            repository.saveAndFlush(new IdempotencyRecord(userId, idempotencyKey, fingerprint, clock.instant()));
+            return new Claim(Outcome.ACQUIRED, null, mine.result());
+        } catch (DataIntegrityViolationException duplicate) {
+            inFlight.remove(key, mine);
+            mine.result().complete(Optional.empty());
+            return repository.findByUserIdAndIdempotencyKey(userId, idempotencyKey)
+                    .map(record -> fromRecord(key, record, fingerprint))
+                    .orElseGet(() -> new Claim(Outcome.IN_PROGRESS, null, null));
+        } catch (RuntimeException e) {
+            inFlight.remove(key, mine);
+            mine.result().complete(Optional.empty());
+            throw e;
+        }
+    }
+
+    /**
+     * Stores the response of a posting made under an acquired key. Called by the ledger writer inside the posting's
+     * transaction, so the two commit or roll back together.
+     */
+    public void recordPosted(Transaction transaction) {
+        if (transaction.getIdempotencyKey() == null) {
+            return;
+        }
+        String body;
+        try {
+            body = objectMapper.writeValueAsString(MapperUtil.toTransactionResponse(transaction));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialise idempotent response", e);
+        }
+        repository.complete(transaction.getIdempotencyUserId(), transaction.getIdempotencyKey(), body, clock.instant());
+    }
+
+    /**
+     * Records the response for an acquired key in memory once its posting has committed, and hands it to any
+     * duplicate waiting on the original.
+     */
+    public void complete(Long userId, String idempotencyKey, TransactionResponse response) {
+        Key key = new Key(userId, idempotencyKey);
+        Pending pending = inFlight.get(key);
+        String fingerprint = pending == null ? null : pending.fingerprint();
+        completed.put(key, new Completed(fingerprint, response), ttl);
+        if (pending != null) {
+            inFlight.remove(key, pending);
+            pending.result().complete(Optional.of(response));
+        }
+    }
+
+    /**
+     * Gives up an acquired key without a stored response, e.g. because the posting was rejected, so the client can
+     * retry with the same key.
+     */
+    public void release(Long userId, String idempotencyKey) {
+        Key key = new Key(userId, idempotencyKey);
+        Pending pending = inFlight.remove(key);
+        try {
+            writer.execute(() -> repository.deletePending(userId, idempotencyKey));
+        } catch (RejectedExecutionException e) {
+            log.warn("Idempotency writer is saturated; key {} stays claimed until it expires", idempotencyKey);
+        }
+        if (pending != null) {
+            pending.result().complete(Optional.empty());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.purge-interval:PT1H}")
+    public void purgeExpired() {
+        int purged = repository.deleteCreatedBefore(clock.instant().minus(ttl));
+        if (purged > 0) {
+            log.debug("Purged {} expired idempotency records", purged);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        writer.shutdown();
+        writer.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stable digest of the request fields that define "the same request" for a key.
+     */
+    public static String fingerprint(Object... parts) {
+        StringBuilder canonical = new StringBuilder();
+        for (Object part : parts) {
+            canonical.append(part).append('\u001f');
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonical.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Claim replay(Completed stored, String fingerprint) {
+        if (stored.fingerprint() != null && !stored.fingerprint().equals(fingerprint)) {
+            return new Claim(Outcome.MISMATCH, null, null);
+        }
+        return new Claim(Outcome.REPLAY, stored.response(), null);
+    }
+
+    private Claim fromRecord(Key key, IdempotencyRecord record, String fingerprint) {
+        if (!record.getFingerprint().equals(fingerprint)) {
+            return new Claim(Outcome.MISMATCH, null, null);
+        }
+        if (!record.isCompleted()) {
+            return new Claim(Outcome.IN_PROGRESS, null, null);
+        }
+        try {
+            TransactionResponse response = objectMapper.readValue(record.getResponseBody(), TransactionResponse.class);
+            completed.put(key, new Completed(record.getFingerprint(), response),
+                    record.getCreatedAt().plus(ttl).toEpochMilli());
+            return new Claim(Outcome.REPLAY, response, null);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored idempotent response is unreadable", e);
+        }
+    }
+}
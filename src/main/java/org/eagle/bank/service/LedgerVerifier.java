@@ -0,0 +1,256 @@
+package org.eagle.bank.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.eagle.bank.model.BalanceCheckpoint;
+import org.eagle.bank.model.Transaction;
+import org.eagle.bank.repository.BalanceCheckpointRepository;
+import org.eagle.bank.repository.BankAccountRepository;
+import org.eagle.bank.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Checks every account's stored balance against its transactions, incrementally.
+ * <p>
+ * Each account has a {@link BalanceCheckpoint}. A check sums only the transactions after the checkpoint and compares
+ * checkpoint + sum with the stored balance, reading both in one statement. When they agree, the checkpoint is moved
+ * up to the newest transaction older than the settle window. Positions are (timestamp, id), not ids: ids come from
+ * a pooled sequence per instance, so a posting can commit long after one with a higher id, whereas a posting is
+ * written within the settle window of its timestamp. Everything before a settled position has therefore committed,
+ * and nothing can later appear behind the checkpoint. When they disagree, the drift is reported and the checkpoint
+ * stays where it is, so the drift keeps showing up until someone corrects it.
+ * <p>
+ * Closed accounts are skipped: their history is being deleted, which would otherwise show up as drift.
+ * <p>
+ * Accounts are checked a page at a time on a fixed pool. If the pool's queue is full, the scheduling thread runs
+ * the check itself, which holds back the next page.
+ */
+@Slf4j
+@Service
+public class LedgerVerifier {
+
+    static final int MAX_REPORTED_DRIFTS = 100;
+
+    public record Drift(Long accountId, BigDecimal balance, BigDecimal expected) {
+        public BigDecimal difference() {
+            return balance.subtract(expected);
+        }
+    }
+
+    public record Report(Instant startedAt, Instant finishedAt, int accountsVerified, int checkpointsSeeded,
+                         int driftCount, int failures, List<Drift> drifts) {
+    }
+
+    enum Status {
+        CONSISTENT,
+        /** The account had no checkpoint; its current state was adopted as the baseline. */
+        SEEDED,
+        DRIFT,
+        /** The account no longer exists or is closed for deletion; its checkpoint was removed. */
+        GONE
+    }
+
+    record AccountCheck(Long accountId, Status status, Drift drift) {
+    }
+
+    private final BankAccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final BalanceCheckpointRepository checkpointRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+    private final Duration settleWindow;
+    private final int pageSize;
+    private final ThreadPoolExecutor executor;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile Report lastReport;
+
+    @Autowired
+    public LedgerVerifier(BankAccountRepository accountRepository, TransactionRepository transactionRepository,
+                          BalanceCheckpointRepository checkpointRepository, PlatformTransactionManager transactionManager,
+                          @Value("${ledger.verify.settle-window:PT5M}") Duration settleWindow,
+                          @Value("${ledger.verify.parallelism:4}") int parallelism,
+                          @Value("${ledger.verify.page-size:500}") int pageSize) {
+        this(accountRepository, transactionRepository, checkpointRepository, transactionManager, settleWindow,
+                parallelism, pageSize, Clock.systemUTC());
+    }
+
+    LedgerVerifier(BankAccountRepository accountRepository, TransactionRepository transactionRepository,
+                   BalanceCheckpointRepository checkpointRepository, PlatformTransactionManager transactionManager,
+                   Duration settleWindow, int parallelism, int pageSize, Clock clock) {
+        if (parallelism < 1 || pageSize < 1) {
+            throw new IllegalArgumentException("parallelism and pageSize must be positive");
+        }
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.settleWindow = settleWindow;
+        this.pageSize = pageSize;
+        this.clock = clock;
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(parallelism, parallelism, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(pageSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "ledger-verifier-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @Scheduled(fixedDelayString = "${ledger.verify.interval:PT15M}",
+            initialDelayString = "${ledger.verify.initial-delay:PT1M}")
+    public void scheduledVerify() {
+        verifyAll();
+    }
+
+    /**
+     * Verifies every account. If a run is already in progress, returns the last completed report instead of
+     * starting a second one.
+     */
+    public Report verifyAll() {
+        if (!running.compareAndSet(false, true)) {
+            return lastReport;
+        }
+        try {
+            Instant startedAt = clock.instant();
+            int verified = 0;
+            int seeded = 0;
+            int driftCount = 0;
+            int failures = 0;
+            List<Drift> drifts = new ArrayList<>();
+            long afterId = 0;
+            List<Long> ids;
+            do {
+                ids = accountRepository.findOpenIdsAfter(afterId, PageRequest.of(0, pageSize));
+                List<CompletableFuture<AccountCheck>> checks = new ArrayList<>(ids.size());
+                for (Long id : ids) {
+                    checks.add(CompletableFuture.supplyAsync(() -> verifyAccount(id), executor));
+                }
+                for (CompletableFuture<AccountCheck> check : checks) {
+                    AccountCheck result;
+                    try {
+                        result = check.join();
+                    } catch (CompletionException e) {
+                        log.error("Ledger verification failed for an account", e.getCause());
+                        failures++;
+                        continue;
+                    }
+                    switch (result.status()) {
+                        case CONSISTENT -> verified++;
+                        case SEEDED -> {
+                            verified++;
+                            seeded++;
+                        }
+                        case DRIFT -> {
+                            verified++;
+                            driftCount++;
+                            if (drifts.size() < MAX_REPORTED_DRIFTS) {
+                                drifts.add(result.drift());
+                            }
+                        }
+                        case GONE -> {
+                        }
+                    }
+                }
+                if (!ids.isEmpty()) {
+                    afterId = ids.get(ids.size() - 1);
+                }
+            } while (ids.size() == pageSize);
+
+            Report report = new Report(startedAt, clock.instant(), verified, seeded, driftCount, failures,
+                    List.copyOf(drifts));
+            lastReport = report;
+            if (driftCount > 0 || failures > 0) {
+                log.warn("Ledger verification found {} drifted account(s) and {} failure(s) across {} account(s)",
+                        driftCount, failures, verified);
+            } else {
+                log.info("Ledger verification checked {} account(s), no drift", verified);
+            }
+            return report;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * The report of the last completed run, or null if none has completed yet.
+     */
+    public Report lastReport() {
+        return lastReport;
+    }
+
+    AccountCheck verifyAccount(Long accountId) {
+        return transactionTemplate.execute(status -> {
+            Optional<BalanceCheckpoint> existing = checkpointRepository.findById(accountId);
+            Instant afterTimestamp = existing.map(BalanceCheckpoint::getLastTransactionTimestamp).orElse(Instant.EPOCH);
+            long afterId = existing.map(BalanceCheckpoint::getLastTransactionId).orElse(0L);
+            Optional<BankAccountRepository.LedgerView> view = accountRepository.findLedgerView(accountId,
+                    afterTimestamp, afterId, Transaction.TransactionType.DEPOSIT);
+            if (view.isEmpty()) {
+                existing.ifPresent(checkpointRepository::delete);
+                return new AccountCheck(accountId, Status.GONE, null);
+            }
+            BigDecimal balance = view.get().getBalance();
+            BigDecimal netAmount = view.get().getNetAmount();
+
+            BalanceCheckpoint checkpoint;
+            Status result;
+            if (existing.isPresent()) {
+                checkpoint = existing.get();
+                BigDecimal expected = checkpoint.getBalance().add(netAmount);
+                if (balance.compareTo(expected) != 0) {
+                    log.warn("Balance drift on account {}: stored {} but ledger gives {}", accountId, balance, expected);
+                    return new AccountCheck(accountId, Status.DRIFT, new Drift(accountId, balance, expected));
+                }
+                result = Status.CONSISTENT;
+            } else {
+                // No checkpoint yet (the account predates them): infer the opening balance from the full ledger
+                checkpoint = new BalanceCheckpoint(accountId, balance.subtract(netAmount), Instant.EPOCH, 0L,
+                        clock.instant());
+                result = Status.SEEDED;
+            }
+
+            Instant now = clock.instant();
+            List<TransactionRepository.LedgerPosition> settled = transactionRepository.findSettledAfter(accountId,
+                    checkpoint.getLastTransactionTimestamp(), checkpoint.getLastTransactionId(),
+                    now.minus(settleWindow), PageRequest.of(0, 1));
+            if (!settled.isEmpty()) {
+                TransactionRepository.LedgerPosition upTo = settled.get(0);
+                BigDecimal settledAmount = transactionRepository.sumNetAmount(accountId,
+                        checkpoint.getLastTransactionTimestamp(), checkpoint.getLastTransactionId(),
+                        upTo.getTimestamp(), upTo.getId(), Transaction.TransactionType.DEPOSIT);
+                checkpoint.setBalance(checkpoint.getBalance().add(settledAmount));
+                checkpoint.setLastTransactionTimestamp(upTo.getTimestamp());
+                checkpoint.setLastTransactionId(upTo.getId());
+                checkpoint.setCheckpointedAt(now);
+            }
+            if (!settled.isEmpty() || result == Status.SEEDED) {
+                checkpointRepository.save(checkpoint);
+            }
+            return new AccountCheck(accountId, result, null);
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
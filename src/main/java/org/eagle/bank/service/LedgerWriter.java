@@ -0,0 +1,90 @@
+package org.eagle.bank.service;
+
+import jakarta.persistence.EntityNotFoundException;
+import org.eagle.bank.model.Transaction;
+import org.eagle.bank.repository.BankAccountRepository;
+import org.eagle.bank.repository.TransactionRepository;
+import org.eagle.bank.util.Money;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Applies a run of postings to one account as a single write: every posting is evaluated against the running
+ * balance in the order given, and the result is one compare-and-set of the balance plus one insert of all accepted
+ * rows, along with the stored response of any posting made under an Idempotency-Key. If the balance moved
+ * underneath (another writer outside the posting lanes), the write fails with an optimistic locking error and can be
+ * retried as a whole. Postings to a closed account fail as if it did not exist. Joins the caller's transaction if
+ * there is one.
+ */
+@Component
+public class LedgerWriter {
+
+    /**
+     * Postings split by outcome, each list in the original order. Rejected postings were withdrawals
+     * the running balance could not cover at their turn.
+     */
+    public record Result(List<Transaction> posted, List<Transaction> rejected) {
+    }
+
+    private final BankAccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final AccountCache accountCache;
+    private final IdempotencyService idempotencyService;
+
+    public LedgerWriter(BankAccountRepository accountRepository, TransactionRepository transactionRepository,
+                        PlatformTransactionManager transactionManager, AccountCache accountCache,
+                        IdempotencyService idempotencyService) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.accountCache = accountCache;
+        this.idempotencyService = idempotencyService;
+    }
+
+    public Result write(Long accountId, List<Transaction> postings) {
+        return transactionTemplate.execute(status -> apply(accountId, postings));
+    }
+
+    private Result apply(Long accountId, List<Transaction> postings) {
+        BigDecimal opening = accountRepository.findBalanceById(accountId)
+                .orElseThrow(() -> new EntityNotFoundException("Account not found"));
+        // the running balance is kept in minor units: each step is a checked long operation, not a new BigDecimal
+        long balance = Money.toMinorUnits(opening);
+        List<Transaction> posted = new ArrayList<>(postings.size());
+        List<Transaction> rejected = new ArrayList<>();
+        for (Transaction transaction : postings) {
+            long amount = Money.toMinorUnits(transaction.getAmount());
+            if (transaction.getType() == Transaction.TransactionType.DEPOSIT) {
+                balance = Money.add(balance, amount);
+                posted.add(transaction);
+            } else if (balance >= amount) {
+                balance = Money.subtract(balance, amount);
+                posted.add(transaction);
+            } else {
+                rejected.add(transaction);
+            }
+        }
+        if (!posted.isEmpty()) {
+            if (accountRepository.compareAndSetBalance(accountId, opening, Money.toDecimal(balance)) == 0) {
+                throw new OptimisticLockingFailureException("Balance of account " + accountId + " changed concurrently");
+            }
+            for (Transaction transaction : posted) {
+                // a rolled-back earlier attempt may have assigned an id
+                transaction.setId(null);
+            }
+            transactionRepository.saveAll(posted);
+            for (Transaction transaction : posted) {
+                idempotencyService.recordPosted(transaction);
+            }
+            accountCache.invalidateAfterCommit(posted.get(0).getAccount());
+        }
+        return new Result(posted, rejected);
+    }
+}
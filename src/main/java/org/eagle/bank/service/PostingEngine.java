@@ -0,0 +1,145 @@
+package org.eagle.bank.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.eagle.bank.exception.InsufficientFundsException;
+import org.eagle.bank.model.Transaction;
+import org.eagle.bank.util.BoundedRetry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialises postings per account onto a fixed set of single-writer lanes. An account always maps to the same
+ * lane, so its postings are applied in submission order without competing for the account row. Each lane drains
+ * whatever has queued up since its last write and hands it to the {@link LedgerWriter} one account at a time,
+ * turning a burst of N postings into one balance update and one batch insert.
+ */
+@Slf4j
+@Component
+public class PostingEngine {
+
+    private record Pending(Long accountId, Transaction transaction, CompletableFuture<Transaction> result) {
+    }
+
+    private final LedgerWriter ledgerWriter;
+    private final BoundedRetry retry;
+    private final int maxBatch;
+    private final List<Lane> lanes;
+    private volatile boolean running = true;
+
+    public PostingEngine(LedgerWriter ledgerWriter, BoundedRetry retry,
+                         @Value("${transactions.lanes.count:4}") int laneCount,
+                         @Value("${transactions.lanes.queue-capacity:10000}") int queueCapacity,
+                         @Value("${transactions.lanes.max-batch:256}") int maxBatch) {
+        if (laneCount < 1 || maxBatch < 1) {
+            throw new IllegalArgumentException("laneCount and maxBatch must be positive");
+        }
+        this.ledgerWriter = ledgerWriter;
+        this.retry = retry;
+        this.maxBatch = maxBatch;
+        List<Lane> created = new ArrayList<>(laneCount);
+        for (int i = 0; i < laneCount; i++) {
+            created.add(new Lane(i, queueCapacity));
+        }
+        this.lanes = List.copyOf(created);
+        lanes.forEach(lane -> lane.thread.start());
+    }
+
+    /**
+     * Queues the posting on its account's lane. The future completes with the saved transaction, or exceptionally
+     * with {@link InsufficientFundsException} if the balance at its turn in the lane does not cover a withdrawal.
+     *
+     * @throws RejectedExecutionException if the lane is full or the engine is shutting down
+     */
+    public CompletableFuture<Transaction> submit(Long accountId, Transaction transaction) {
+        if (!running) {
+            throw new RejectedExecutionException("Posting engine is shutting down");
+        }
+        Pending pending = new Pending(accountId, transaction, new CompletableFuture<>());
+        if (!laneFor(accountId).queue.offer(pending)) {
+            throw new RejectedExecutionException("Posting lane for account " + accountId + " is full");
+        }
+        return pending.result();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        for (Lane lane : lanes) {
+            lane.thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    private Lane laneFor(Long accountId) {
+        return lanes.get((int) Math.floorMod(accountId, (long) lanes.size()));
+    }
+
+    private final class Lane implements Runnable {
+        private final BlockingQueue<Pending> queue;
+        private final Thread thread;
+
+        private Lane(int index, int capacity) {
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.thread = new Thread(this, "posting-lane-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            List<Pending> batch = new ArrayList<>(maxBatch);
+            // keep draining after shutdown starts so nothing accepted is dropped
+            while (running || !queue.isEmpty()) {
+                try {
+                    Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, maxBatch - 1);
+                    writeBatch(batch);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } finally {
+                    batch.clear();
+                }
+            }
+        }
+
+        private void writeBatch(List<Pending> batch) {
+            Map<Long, List<Pending>> byAccount = new LinkedHashMap<>();
+            for (Pending pending : batch) {
+                byAccount.computeIfAbsent(pending.accountId(), id -> new ArrayList<>()).add(pending);
+            }
+            byAccount.forEach(this::writeAccount);
+        }
+
+        private void writeAccount(Long accountId, List<Pending> postings) {
+            List<Transaction> transactions = postings.stream().map(Pending::transaction).toList();
+            LedgerWriter.Result result;
+            try {
+                result = retry.execute(() -> ledgerWriter.write(accountId, transactions));
+            } catch (RuntimeException e) {
+                log.warn("Posting {} transactions to account {} failed: {}", postings.size(), accountId, e.getMessage());
+                postings.forEach(pending -> pending.result().completeExceptionally(e));
+                return;
+            }
+            Set<Transaction> rejected = Collections.newSetFromMap(new IdentityHashMap<>());
+            rejected.addAll(result.rejected());
+            for (Pending pending : postings) {
+                if (rejected.contains(pending.transaction())) {
+                    pending.result().completeExceptionally(new InsufficientFundsException("Insufficient funds"));
+                } else {
+                    pending.result().complete(pending.transaction());
+                }
+            }
+        }
+    }
+}
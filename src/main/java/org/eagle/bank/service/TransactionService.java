@@ -1,25 +1,62 @@
 package org.eagle.bank.service;
 
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityNotFoundException;
+import org.eagle.bank.exception.InsufficientFundsException;
 import org.eagle.bank.model.Transaction;
 import org.eagle.bank.model.BankAccount;
 import org.eagle.bank.repository.TransactionRepository;
 import org.eagle.bank.repository.BankAccountRepository;
+import org.eagle.bank.util.BoundedRetry;
+import org.eagle.bank.util.TransactionCursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
+@Timed("service.invocations")
 public class TransactionService {
     private final TransactionRepository transactionRepository;
     private final BankAccountRepository accountRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final BoundedRetry retry;
+    private final PostingEngine postingEngine;
+    private final LedgerWriter ledgerWriter;
+    private final AccountCache accountCache;
+
+    /**
+     * One page of an account's transactions, newest first. {@code next} is null on the last page.
+     */
+    public record TransactionPage(List<Transaction> transactions, TransactionCursor next) {
+    }
 
     @Autowired
-    public TransactionService(TransactionRepository transactionRepository, BankAccountRepository accountRepository) {
+    public TransactionService(TransactionRepository transactionRepository, BankAccountRepository accountRepository,
+                              EntityManager entityManager, PlatformTransactionManager transactionManager,
+                              BoundedRetry retry, PostingEngine postingEngine, LedgerWriter ledgerWriter,
+                              AccountCache accountCache) {
         this.transactionRepository = transactionRepository;
         this.accountRepository = accountRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retry = retry;
+        this.postingEngine = postingEngine;
+        this.ledgerWriter = ledgerWriter;
+        this.accountCache = accountCache;
     }
 
     public Transaction createTransaction(Transaction transaction) {
@@ -35,17 +72,112 @@ public class TransactionService {
         return transactionRepository.findByAccount(account);
     }
 
+    /**
+     * Keyset pagination on (timestamp, id): fetches one row more than requested to learn whether a next page exists,
+     * so no count query and no offset scan is needed however deep the client pages.
+     */
+    public TransactionPage getTransactionPage(BankAccount account, TransactionCursor after, int limit) {
+        PageRequest window = PageRequest.of(0, limit + 1);
+        List<Transaction> rows = after == null
+                ? transactionRepository.findByAccountOrderByTimestampDescIdDesc(account, window)
+                : transactionRepository.findPageAfter(account, after.timestamp(), after.id(), window);
+        if (rows.size() <= limit) {
+            return new TransactionPage(rows, null);
+        }
+        List<Transaction> page = rows.subList(0, limit);
+        Transaction last = page.get(limit - 1);
+        return new TransactionPage(page, new TransactionCursor(last.getTimestamp(), last.getId()));
+    }
+
+    /**
+     * Hands every transaction of the account to the consumer as it is read from the cursor. Rows are detached
+     * once consumed, so memory stays flat regardless of the account's history.
+     */
+    @Transactional(readOnly = true)
+    public void streamTransactions(BankAccount account, Consumer<Transaction> consumer) {
+        try (Stream<Transaction> rows = transactionRepository.streamByAccount(account)) {
+            rows.forEach(transaction -> {
+                consumer.accept(transaction);
+                entityManager.detach(transaction);
+            });
+        }
+    }
+
     public Optional<Transaction> getTransactionByIdAndAccount(Long id, BankAccount account) {
         return transactionRepository.findByIdAndAccount(id, account);
     }
 
-    @Transactional
+    /**
+     * Queues the transaction on the account's posting lane, where it is written together with whatever else is
+     * pending for the account. The future fails with {@link InsufficientFundsException} if, at its turn in the lane,
+     * the balance does not cover a withdrawal.
+     *
+     * @throws java.util.concurrent.RejectedExecutionException if the lane is saturated
+     */
+    public CompletableFuture<Transaction> submitTransaction(BankAccount account, Transaction transaction) {
+        return postingEngine.submit(account.getId(), transaction);
+    }
+
+    /**
+     * Bulk ingestion: posts every transaction (each with its account set) in one database transaction. Postings are
+     * grouped per account in list order, so each account gets one balance update, and all rows are inserted in JDBC
+     * batches at a single flush on commit. Withdrawals the running balance cannot cover are skipped and returned
+     * as rejected. Callers replaying large files should pass chunks of a few thousand rows, since every posted row
+     * stays in the persistence context until commit.
+     */
+    public LedgerWriter.Result postAll(List<Transaction> transactions) {
+        return postAll(transactions, false);
+    }
+
+    /**
+     * As {@link #postAll(List)}; when {@code atomic} is set and any posting is rejected, the whole transaction is
+     * rolled back and the result has no posted entries.
+     */
+    public LedgerWriter.Result postAll(List<Transaction> transactions, boolean atomic) {
+        Map<Long, List<Transaction>> byAccount = new LinkedHashMap<>();
+        for (Transaction transaction : transactions) {
+            byAccount.computeIfAbsent(transaction.getAccount().getId(), id -> new ArrayList<>()).add(transaction);
+        }
+        return retry.execute(() -> transactionTemplate.execute(status -> {
+            List<Transaction> posted = new ArrayList<>(transactions.size());
+            List<Transaction> rejected = new ArrayList<>();
+            byAccount.forEach((accountId, postings) -> {
+                LedgerWriter.Result result = ledgerWriter.write(accountId, postings);
+                posted.addAll(result.posted());
+                rejected.addAll(result.rejected());
+            });
+            if (atomic && !rejected.isEmpty()) {
+                status.setRollbackOnly();
+                return new LedgerWriter.Result(List.of(), rejected);
+            }
+            return new LedgerWriter.Result(posted, rejected);
+        }));
+    }
+
+    /**
+     * Posts the transaction and moves the balance in one database transaction. The balance change is a single
+     * conditional UPDATE, so concurrent postings to the same account cannot lose updates or overdraw it;
+     * lock conflicts are retried with a fresh transaction.
+     *
+     * @throws InsufficientFundsException if a withdrawal exceeds the current balance
+     */
     public Transaction applyTransaction(BankAccount account, Transaction transaction) {
-        // Save the transaction
-        Transaction savedTx = transactionRepository.save(transaction);
-        // Update the account balance
-        accountRepository.save(account);
-        // If any exception occurs, both the transaction and balance update are rolled back
-        return savedTx;
-    }
-} 
\ No newline at end of file
+        return retry.execute(() -> transactionTemplate.execute(status -> post(account, transaction)));
+    }
+
+    private Transaction post(BankAccount account, Transaction transaction) {
+        // a rolled-back attempt may have assigned an id; start every attempt from a new row
+        transaction.setId(null);
+        int updated = transaction.getType() == Transaction.TransactionType.DEPOSIT
+                ? accountRepository.credit(account.getId(), transaction.getAmount())
+                : accountRepository.debit(account.getId(), transaction.getAmount());
+        if (updated == 0) {
+            if (accountRepository.findBalanceById(account.getId()).isEmpty()) {
+                throw new EntityNotFoundException("Account not found");
+            }
+            throw new InsufficientFundsException("Insufficient funds");
+        }
+        accountCache.invalidateAfterCommit(account);
+        return transactionRepository.save(transaction);
+    }
+}
@@ -1,24 +1,40 @@
 package org.eagle.bank.service;
 
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
 import org.eagle.bank.model.User;
 import org.eagle.bank.repository.UserRepository;
+import org.eagle.bank.security.PasswordVerifier;
+import org.eagle.bank.security.TokenCache;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.eagle.bank.exception.UserAlreadyExistsException;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
+@Slf4j
 @Service
+@Timed("service.invocations")
 public class UserService {
 
 
     private final UserRepository userRepository;
-    private final BCryptPasswordEncoder passwordEncoder;
+    private final PasswordEncoder passwordEncoder;
+    private final TokenCache tokenCache;
+    private final PasswordVerifier passwordVerifier;
+    private final Executor blockingExecutor;
 
-    public UserService(UserRepository userRepository, BCryptPasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, TokenCache tokenCache,
+                       PasswordVerifier passwordVerifier, @Qualifier("blockingExecutor") Executor blockingExecutor) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.tokenCache = tokenCache;
+        this.passwordVerifier = passwordVerifier;
+        this.blockingExecutor = blockingExecutor;
     }
 
 
@@ -32,6 +48,13 @@ public class UserService {
         return userRepository.findById(id);
     }
 
+    /**
+     * Returns a lazy reference to the user without hitting the database, for use as an association target.
+     */
+    public User getUserReference(Long id) {
+        return userRepository.getReferenceById(id);
+    }
+
     public Optional<User> getUserByUsername(String username) {
         return userRepository.findByUsername(username);
     }
@@ -45,15 +68,55 @@ public class UserService {
         return userRepository.save(user);
     }
 
+    /**
+     * The user's accounts are not deleted with it; they have to be deleted first (see {@link AccountDeleter}).
+     */
     public void deleteUser(Long id) {
         userRepository.deleteById(id);
+        tokenCache.evictUser(id);
     }
 
-    public Optional<User> authenticateUser(String username, String rawPassword) {
+    /**
+     * Looks the user up on the calling thread and checks the password on the {@link PasswordVerifier} pool. An
+     * unknown username is still checked, against a dummy hash, so it takes as long as a wrong password. After a
+     * successful check, a hash stored with other parameters than the current ones is replaced: the new hash is
+     * computed on the verifier pool, since it costs as much as the check, and written from the blocking executor, so
+     * no verifier thread waits on the database. The login does not wait for the write.
+     *
+     * @throws java.util.concurrent.RejectedExecutionException if the verifier is saturated
+     */
+    public CompletableFuture<Optional<User>> authenticateUser(String username, String rawPassword) {
         Optional<User> userOpt = userRepository.findByUsername(username);
-        if (userOpt.isPresent() && passwordEncoder.matches(rawPassword, userOpt.get().getPassword())) {
-            return userOpt;
+        return passwordVerifier.matches(rawPassword, userOpt.map(User::getPassword).orElse(null))
+                .thenApply(matches -> {
+                    if (!matches) {
+                        return Optional.<User>empty();
+                    }
+                    rehashIfOutdated(userOpt.get(), rawPassword);
+                    return userOpt;
+                });
+    }
+
+    private void rehashIfOutdated(User user, String rawPassword) {
+        String stored = user.getPassword();
+        if (!passwordEncoder.upgradeEncoding(stored)) {
+            return;
+        }
+        Long userId = user.getId();
+        try {
+            String rehashed = passwordEncoder.encode(rawPassword);
+            blockingExecutor.execute(() -> replacePasswordHash(userId, stored, rehashed));
+        } catch (RuntimeException e) {
+            // the login itself succeeded; the next one will try again
+            log.warn("Could not upgrade the password hash of user {}", userId, e);
+        }
+    }
+
+    private void replacePasswordHash(Long userId, String stored, String rehashed) {
+        try {
+            userRepository.replacePasswordHash(userId, stored, rehashed);
+        } catch (RuntimeException e) {
+            log.warn("Could not upgrade the password hash of user {}", userId, e);
         }
-        return Optional.empty();
     }
 } 
\ No newline at end of file
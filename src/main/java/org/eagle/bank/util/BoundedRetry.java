@@ -0,0 +1,58 @@
+package org.eagle.bank.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Re-runs an action that lost a race on a database row (optimistic version clash, lock timeout, deadlock)
+ * a limited number of times, backing off linearly with jitter so competing writers spread out.
+ * The action must start its own transaction so every attempt sees fresh state.
+ */
+@Slf4j
+@Component
+public class BoundedRetry {
+
+    private final int maxAttempts;
+    private final long backoffMillis;
+
+    public BoundedRetry(@Value("${transactions.retry.max-attempts:3}") int maxAttempts,
+                        @Value("${transactions.retry.backoff-ms:10}") long backoffMillis) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be at least 1");
+        }
+        this.maxAttempts = maxAttempts;
+        this.backoffMillis = backoffMillis;
+    }
+
+    public <T> T execute(Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (ConcurrencyFailureException ex) {
+                if (attempt >= maxAttempts) {
+                    throw ex;
+                }
+                log.debug("Concurrent update conflict, retrying (attempt {} of {}): {}", attempt, maxAttempts, ex.getMessage());
+                pause(attempt, ex);
+            }
+        }
+    }
+
+    private void pause(int attempt, ConcurrencyFailureException cause) {
+        if (backoffMillis <= 0) {
+            return;
+        }
+        long delay = backoffMillis * attempt + ThreadLocalRandom.current().nextLong(backoffMillis);
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw cause;
+        }
+    }
+}
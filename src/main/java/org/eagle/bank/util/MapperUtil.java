@@ -3,6 +3,7 @@ package org.eagle.bank.util;
 import lombok.extern.slf4j.Slf4j;
 import org.eagle.bank.dto.*;
 import org.eagle.bank.exception.MappingException;
+import org.eagle.bank.model.AccountSnapshot;
 import org.eagle.bank.model.Address;
 import org.eagle.bank.model.BankAccount;
 import org.eagle.bank.model.Transaction;
@@ -17,12 +18,12 @@ import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.util.List;
-import java.util.Random;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Component
 public class MapperUtil {
+    // Only used for request -> entity mapping; responses on the hot read paths are mapped by hand below
     private static final ModelMapper modelMapper = new ModelMapper();
     private static final Logger logger = LoggerFactory.getLogger(MapperUtil.class);
 
@@ -44,12 +45,35 @@ public class MapperUtil {
     }
 
     public static UserResponse toUserResponse(User user) {
-        return modelMapper.map(user, UserResponse.class);
+        UserResponse response = new UserResponse();
+        response.setId(toStringOrNull(user.getId()));
+        response.setName(user.getName());
+        response.setPhoneNumber(user.getPhoneNumber());
+        response.setEmail(user.getEmail());
+        response.setUsername(user.getUsername());
+        response.setAddress(toUserResponseAddress(user.getAddress()));
+        return response;
+    }
+
+    private static UpdateUserRequestAddress toUserResponseAddress(Address address) {
+        if (address == null) {
+            return null;
+        }
+        UpdateUserRequestAddress response = new UpdateUserRequestAddress();
+        response.setLine1(address.getLine1());
+        response.setTown(address.getTown());
+        response.setCounty(address.getCounty());
+        response.setPostcode(address.getPostcode());
+        return response;
     }
 
     public static BankAccountResponse toBankAccountResponse(BankAccount bankAccount) {
         try {
-            BankAccountResponse response = modelMapper.map(bankAccount, BankAccountResponse.class);
+            BankAccountResponse response = new BankAccountResponse();
+            response.setAccountNumber(bankAccount.getAccountNumber());
+            response.setSortCode(bankAccount.getSortCode());
+            response.setName(bankAccount.getName());
+            response.setBalance(bankAccount.getBalance());
             response.setUserId(bankAccount.getUser().getId().toString());
             response.setAccountType(BankAccountResponse.AccountTypeEnum.valueOf(bankAccount.getAccountType().toUpperCase()));
             return response;
@@ -60,6 +84,23 @@ public class MapperUtil {
 
     }
 
+    public static BankAccountResponse toBankAccountResponse(AccountSnapshot account) {
+        BankAccountResponse response = new BankAccountResponse();
+        response.setAccountNumber(account.accountNumber());
+        response.setSortCode(account.sortCode());
+        response.setName(account.name());
+        response.setBalance(Money.toDecimal(account.balanceMinor()));
+        response.setUserId(toStringOrNull(account.userId()));
+        response.setAccountType(BankAccountResponse.AccountTypeEnum.valueOf(account.accountType().toUpperCase()));
+        return response;
+    }
+
+    public static List<BankAccountResponse> toBankAccountResponses(List<AccountSnapshot> accounts) {
+        return accounts.stream()
+                .map(MapperUtil::toBankAccountResponse)
+                .collect(Collectors.toList());
+    }
+
     public static List<BankAccountResponse> toBankAccountResponseList(List<BankAccount> bankAccounts) {
         return bankAccounts.stream()
                 .map(MapperUtil::toBankAccountResponse)
@@ -67,7 +108,11 @@ public class MapperUtil {
     }
 
     public static TransactionResponse toTransactionResponse(Transaction transaction) {
-        TransactionResponse tx = modelMapper.map(transaction, TransactionResponse.class);
+        TransactionResponse tx = new TransactionResponse();
+        tx.setId(toStringOrNull(transaction.getId()));
+        tx.setAmount(transaction.getAmount());
+        tx.setType(transaction.getType() == null ? null : TransactionResponse.TypeEnum.valueOf(transaction.getType().name()));
+        tx.setReference(transaction.getReference());
         tx.setAccountId(transaction.getAccount().getId().toString());
         tx.setAccountNumber(transaction.getAccount().getAccountNumber());
         tx.setUserId(transaction.getAccount().getUser().getId().toString());
@@ -126,8 +171,6 @@ public class MapperUtil {
         try {
             BankAccount account = new BankAccount();
             account.setName(createAccountRequest.getName());
-            account.setAccountNumber(accountNoGenerator());
-            account.setSortCode(sortCodeGenerator());
             account.setBalance(createAccountRequest.getBalance());
             account.setAccountType(createAccountRequest.getAccountType().toString());
             account.setUser(authenticatedUser);
@@ -139,7 +182,7 @@ public class MapperUtil {
 
     }
 
-    public static Transaction getTransaction(CreateTransactionRequest transactionRequest, BankAccount bankAccount, User user) {
+    public static Transaction getTransaction(CreateTransactionRequest transactionRequest, BankAccount bankAccount) {
         Transaction.TransactionType type = Transaction.TransactionType.valueOf(transactionRequest.getType().name());
         Transaction transaction = new Transaction();
         transaction.setType(type);
@@ -147,27 +190,20 @@ public class MapperUtil {
         transaction.setAmount(transactionRequest.getAmount());
         transaction.setAccount(bankAccount);
         transaction.setTimestamp(Instant.now());
-        if (type == Transaction.TransactionType.DEPOSIT) {
-            bankAccount.setBalance(bankAccount.getBalance().add(transactionRequest.getAmount()));
-        } else if (type == Transaction.TransactionType.WITHDRAWAL) {
-            bankAccount.setBalance(bankAccount.getBalance().subtract(transactionRequest.getAmount()));
-        }
         return transaction;
     }
 
-    private static String accountNoGenerator() {
-        // Simple account number generator: 01 + 6 random digits
-        int random = (int)(Math.random() * 1_000_000);
-        return String.format("01%06d", random);
+    public static Transaction getTransaction(BatchTransactionItem item, BankAccount bankAccount) {
+        Transaction transaction = new Transaction();
+        transaction.setType(Transaction.TransactionType.valueOf(item.getType().name()));
+        transaction.setReference(item.getReference());
+        transaction.setAmount(item.getAmount());
+        transaction.setAccount(bankAccount);
+        transaction.setTimestamp(Instant.now());
+        return transaction;
     }
 
-    private static String sortCodeGenerator() {
-        // Simple sort code generator: 12 + 2 random digits
-        Random random = new Random();
-        int part1 = random.nextInt(100); // 00 to 99
-        int part2 = random.nextInt(100);
-        int part3 = random.nextInt(100);
-
-        return String.format("%02d-%02d-%02d", part1, part2, part3);
+    private static String toStringOrNull(Long value) {
+        return value == null ? null : value.toString();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,50 @@
+package org.eagle.bank.util;
+
+import java.math.BigDecimal;
+
+/**
+ * Money as a {@code long} count of minor units (pence), for arithmetic on the posting path without allocating a
+ * {@link BigDecimal} per step. Every operation is exact: it throws {@link ArithmeticException} instead of rounding
+ * or overflowing. {@code BigDecimal} stays at the edges, i.e. JSON and the {@code precision = 19, scale = 2}
+ * database columns. Those columns hold up to 10^17 - 0.01, more than a long of minor units (about 9.2 * 10^16), so
+ * a stored value beyond that fails {@link #toMinorUnits} rather than being truncated; every long fits the columns.
+ */
+public final class Money {
+
+    public static final int SCALE = 2;
+
+    private Money() {
+    }
+
+    /**
+     * @throws ArithmeticException if the amount has more than two significant decimal places or does not fit in a
+     *                             long of minor units
+     */
+    public static long toMinorUnits(BigDecimal amount) {
+        return amount.movePointRight(SCALE).longValueExact();
+    }
+
+    public static BigDecimal toDecimal(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    /**
+     * Whether the amount can be represented exactly, i.e. {@link #toMinorUnits} would not throw.
+     */
+    public static boolean isExact(BigDecimal amount) {
+        try {
+            toMinorUnits(amount);
+            return true;
+        } catch (ArithmeticException e) {
+            return false;
+        }
+    }
+
+    public static long add(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    public static long subtract(long a, long b) {
+        return Math.subtractExact(a, b);
+    }
+}
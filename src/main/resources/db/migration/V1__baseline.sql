@@ -0,0 +1,71 @@
+-- Schema as Hibernate generated it from the entities before migrations were introduced. Written to run on
+-- PostgreSQL and on H2 in PostgreSQL mode (the pgcompat test profile).
+
+create sequence bank_account_seq start with 1 increment by 50;
+create sequence transaction_seq start with 1 increment by 50;
+
+create table address (
+    id       bigint generated by default as identity primary key,
+    line1    varchar(255) not null,
+    town     varchar(255) not null,
+    county   varchar(255) not null,
+    postcode varchar(255) not null
+);
+
+create table users (
+    id           bigint generated by default as identity primary key,
+    name         varchar(255) not null,
+    phone_number varchar(255) not null,
+    email        varchar(255) not null,
+    username     varchar(255) not null,
+    password     varchar(255) not null,
+    address_id   bigint       not null,
+    constraint uk_users_phone_number unique (phone_number),
+    constraint uk_users_email unique (email),
+    constraint uk_users_username unique (username),
+    constraint uk_users_address unique (address_id),
+    constraint fk_users_address foreign key (address_id) references address (id)
+);
+
+create table bank_account (
+    id             bigint         not null primary key,
+    account_number varchar(255)   not null,
+    sort_code      varchar(255)   not null,
+    name           varchar(255),
+    balance        numeric(19, 2) not null,
+    user_id        bigint         not null,
+    account_type   varchar(255)   not null,
+    version        bigint         not null default 0,
+    constraint uk_bank_account_number unique (account_number),
+    constraint uk_bank_account_sort_code unique (sort_code),
+    constraint fk_bank_account_user foreign key (user_id) references users (id)
+);
+
+create table transaction (
+    id         bigint                      not null primary key,
+    type       varchar(255)                not null,
+    amount     numeric(19, 2)              not null,
+    timestamp  timestamp(6) with time zone not null,
+    reference  varchar(255),
+    account_id bigint                      not null,
+    constraint ck_transaction_type check (type in ('DEPOSIT', 'WITHDRAWAL')),
+    constraint fk_transaction_account foreign key (account_id) references bank_account (id)
+);
+
+create table balance_checkpoint (
+    account_id          bigint                      not null primary key,
+    balance             numeric(19, 2)              not null,
+    last_transaction_id bigint                      not null,
+    checkpointed_at     timestamp(6) with time zone not null
+);
+
+create table idempotency_record (
+    id              bigint generated by default as identity primary key,
+    user_id         bigint                      not null,
+    idempotency_key varchar(255)                not null,
+    fingerprint     varchar(64)                 not null,
+    response_body   varchar(4000),
+    created_at      timestamp(6) with time zone not null,
+    completed_at    timestamp(6) with time zone,
+    constraint uk_idempotency_user_key unique (user_id, idempotency_key)
+);
@@ -0,0 +1,11 @@
+-- Indexes for the per-request lookups. users.username, bank_account.account_number and
+-- idempotency_record (user_id, idempotency_key) are already covered by their unique constraints.
+
+-- a page of an account's transactions, newest first, read straight off the index without a sort
+create index idx_transaction_account_timestamp on transaction (account_id, timestamp, id);
+
+-- an owner's accounts (account listing, ownership checks)
+create index idx_bank_account_user on bank_account (user_id);
+
+-- the hourly purge of expired idempotency records
+create index idx_idempotency_created_at on idempotency_record (created_at);
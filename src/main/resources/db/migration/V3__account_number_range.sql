@@ -0,0 +1,15 @@
+-- The sort code identifies the branch, which many accounts share.
+alter table bank_account drop constraint uk_bank_account_sort_code;
+
+-- Account numbers are now reserved in blocks from this high-water mark instead of drawn at random. The randomly
+-- drawn 01 numbers are spread up to the top of their range, leaving no free run above them, so allocation uses the
+-- 02 prefix, which no earlier account has.
+create table account_number_range (
+    prefix     varchar(2) not null primary key,
+    next_value bigint     not null
+);
+
+insert into account_number_range (prefix, next_value)
+select '02', coalesce(max(cast(substring(account_number, 3) as bigint)), 0) + 1
+from bank_account
+where account_number like '02______';
@@ -0,0 +1,23 @@
+-- Checkpoints now cover an account's transactions up to a (timestamp, id) position instead of up to an id. Ids come
+-- from a pooled sequence per instance and are not in commit order; timestamps older than the settle window are.
+alter table balance_checkpoint add column last_transaction_timestamp timestamp(6) with time zone;
+
+update balance_checkpoint c
+set last_transaction_timestamp = coalesce(
+        (select t.timestamp from transaction t where t.id = c.last_transaction_id),
+        timestamp with time zone '1970-01-01 00:00:00+00');
+
+-- Re-base each balance on the new position: take out transactions the old id checkpoint counted that sort after it,
+-- and add those it skipped that sort before it.
+update balance_checkpoint c
+set balance = c.balance
+        - (select coalesce(sum(case when t.type = 'DEPOSIT' then t.amount else -t.amount end), 0)
+           from transaction t
+           where t.account_id = c.account_id and t.id < c.last_transaction_id
+             and t.timestamp > c.last_transaction_timestamp)
+        + (select coalesce(sum(case when t.type = 'DEPOSIT' then t.amount else -t.amount end), 0)
+           from transaction t
+           where t.account_id = c.account_id and t.id > c.last_transaction_id
+             and t.timestamp < c.last_transaction_timestamp);
+
+alter table balance_checkpoint alter column last_transaction_timestamp set not null;
@@ -0,0 +1,2 @@
+-- Deleting an account first closes it, so postings stop before its history is removed in chunks.
+alter table bank_account add column closed boolean default false not null;
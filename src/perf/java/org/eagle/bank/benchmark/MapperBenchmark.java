@@ -0,0 +1,76 @@
+package org.eagle.bank.benchmark;
+
+import org.eagle.bank.dto.BankAccountResponse;
+import org.eagle.bank.dto.TransactionResponse;
+import org.eagle.bank.dto.UserResponse;
+import org.eagle.bank.model.Address;
+import org.eagle.bank.model.BankAccount;
+import org.eagle.bank.model.Transaction;
+import org.eagle.bank.model.User;
+import org.eagle.bank.util.LegacyResponseMapper;
+import org.eagle.bank.util.MapperUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hand-written response mappers in MapperUtil against the reflective ModelMapper path they replaced.
+ * Run with {@code mvn -Pjmh test-compile exec:exec}; add {@code -prof gc} to the JMH arguments for allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperBenchmark {
+
+    private LegacyResponseMapper legacy;
+    private User user;
+    private BankAccount bankAccount;
+    private Transaction transaction;
+
+    @Setup
+    public void setUp() {
+        legacy = new LegacyResponseMapper();
+        user = new User(7L, "John Smith", "+447700900123",
+                new Address(3L, "1 Main St", "London", "Greater London", "E1 1AA"),
+                "john@example.com", "john", "encoded");
+        bankAccount = new BankAccount(11L, "Savings", "01234567", "10-10-20", "personal",
+                new BigDecimal("1250.50"), user, null);
+        transaction = new Transaction(42L, Transaction.TransactionType.DEPOSIT, new BigDecimal("20.00"),
+                Instant.now(), bankAccount, "rent");
+    }
+
+    @Benchmark
+    public TransactionResponse transaction_modelMapper() {
+        return legacy.toTransactionResponse(transaction);
+    }
+
+    @Benchmark
+    public TransactionResponse transaction_handWritten() {
+        return MapperUtil.toTransactionResponse(transaction);
+    }
+
+    @Benchmark
+    public BankAccountResponse bankAccount_modelMapper() {
+        return legacy.toBankAccountResponse(bankAccount);
+    }
+
+    @Benchmark
+    public BankAccountResponse bankAccount_handWritten() {
+        return MapperUtil.toBankAccountResponse(bankAccount);
+    }
+
+    @Benchmark
+    public UserResponse user_modelMapper() {
+        return legacy.toUserResponse(user);
+    }
+
+    @Benchmark
+    public UserResponse user_handWritten() {
+        return MapperUtil.toUserResponse(user);
+    }
+}
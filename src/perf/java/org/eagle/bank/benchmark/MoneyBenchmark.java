@@ -0,0 +1,73 @@
+package org.eagle.bank.benchmark;
+
+import org.eagle.bank.util.Money;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The balance evaluation LedgerWriter runs over one lane batch: a running balance walked through a mix of deposits
+ * and withdrawals with an overdraft check per step, once on BigDecimal (before) and once on long minor units
+ * (after). The amounts start as BigDecimal in both cases, as they arrive from JSON and JPA.
+ * End-to-end posting numbers for the same change come from TransactionServiceBenchmark run on either side of it.
+ * Run with {@code mvn -Pjmh test-compile exec:exec -Djmh.args="MoneyBenchmark -prof gc"}.
+ * <p>
+ * Measured on JDK 21.0.1 with one vCPU, for a batch of 256: BigDecimal 1710 ± 949 ns and 6840 B per batch, minor
+ * units 565 ± 158 ns and 40 B per batch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MoneyBenchmark {
+
+    @Param("256")
+    public int batchSize;
+
+    private BigDecimal opening;
+    private BigDecimal[] amounts;
+    private boolean[] deposits;
+
+    @Setup
+    public void setUp() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        opening = new BigDecimal("1000.00");
+        amounts = new BigDecimal[batchSize];
+        deposits = new boolean[batchSize];
+        for (int i = 0; i < batchSize; i++) {
+            amounts[i] = BigDecimal.valueOf(random.nextLong(1, 50_000), 2);
+            deposits[i] = random.nextInt(3) == 0;
+        }
+    }
+
+    @Benchmark
+    public BigDecimal runningBalance_bigDecimal() {
+        BigDecimal balance = opening;
+        for (int i = 0; i < amounts.length; i++) {
+            if (deposits[i]) {
+                balance = balance.add(amounts[i]);
+            } else if (balance.compareTo(amounts[i]) >= 0) {
+                balance = balance.subtract(amounts[i]);
+            }
+        }
+        return balance;
+    }
+
+    @Benchmark
+    public BigDecimal runningBalance_minorUnits() {
+        long balance = Money.toMinorUnits(opening);
+        for (int i = 0; i < amounts.length; i++) {
+            long amount = Money.toMinorUnits(amounts[i]);
+            if (deposits[i]) {
+                balance = Money.add(balance, amount);
+            } else if (balance >= amount) {
+                balance = Money.subtract(balance, amount);
+            }
+        }
+        return Money.toDecimal(balance);
+    }
+}
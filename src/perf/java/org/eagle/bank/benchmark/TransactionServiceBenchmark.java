@@ -0,0 +1,89 @@
+package org.eagle.bank.benchmark;
+
+import org.eagle.bank.Main;
+import org.eagle.bank.dto.CreateTransactionRequest;
+import org.eagle.bank.model.Address;
+import org.eagle.bank.model.BankAccount;
+import org.eagle.bank.model.Transaction;
+import org.eagle.bank.model.User;
+import org.eagle.bank.repository.BankAccountRepository;
+import org.eagle.bank.repository.UserRepository;
+import org.eagle.bank.service.LedgerWriter;
+import org.eagle.bank.service.TransactionService;
+import org.eagle.bank.util.MapperUtil;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end posting cost against the embedded H2 database, including the JPA flush and commit: directly through
+ * applyTransaction, through the posting lanes with several threads contending for the same account, and through
+ * bulk ingestion.
+ * The application context is booted once per fork.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionServiceBenchmark {
+
+    private static final int BULK_SIZE = 500;
+
+    private ConfigurableApplicationContext context;
+    private TransactionService transactionService;
+    private BankAccount account;
+    private CreateTransactionRequest deposit;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(Main.class).profiles("bench").run();
+        transactionService = context.getBean(TransactionService.class);
+
+        User user = context.getBean(UserRepository.class).save(new User(null, "Bench User", "+447700900000",
+                new Address(null, "1 Main St", "London", "Greater London", "E1 1AA"),
+                "bench@example.com", "bench", "encoded"));
+        account = context.getBean(BankAccountRepository.class).save(new BankAccount(null, "Bench", "01000001",
+                "10-10-20", "personal", BigDecimal.ZERO, user, null));
+
+        deposit = new CreateTransactionRequest();
+        deposit.setType(CreateTransactionRequest.TypeEnum.DEPOSIT);
+        deposit.setAmount(BigDecimal.ONE);
+        deposit.setReference("bench");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Transaction applyDeposit() {
+        Transaction transaction = MapperUtil.getTransaction(deposit, account);
+        return transactionService.applyTransaction(account, transaction);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Transaction submitDepositThroughLane() {
+        Transaction transaction = MapperUtil.getTransaction(deposit, account);
+        return transactionService.submitTransaction(account, transaction).join();
+    }
+
+    /** Per-row cost of bulk ingestion: 500 rows, one balance update, batched inserts at a single flush. */
+    @Benchmark
+    @OperationsPerInvocation(BULK_SIZE)
+    public LedgerWriter.Result postAllBulk() {
+        List<Transaction> transactions = new ArrayList<>(BULK_SIZE);
+        for (int i = 0; i < BULK_SIZE; i++) {
+            transactions.add(MapperUtil.getTransaction(deposit, account));
+        }
+        return transactionService.postAll(transactions);
+    }
+}
@@ -0,0 +1,41 @@
+package org.eagle.bank.config;
+
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyLimitFilterTest {
+
+    @Test
+    void requestBeyondLimit_isRejectedWith503() throws Exception {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(1, Duration.ZERO);
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+
+        // the inner request arrives while the outer one still holds the only permit
+        FilterChain holdsPermit = (req, res) -> filter.doFilter(new MockHttpServletRequest(), rejected, (r, s) -> fail());
+        filter.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), holdsPermit);
+
+        assertEquals(503, rejected.getStatus());
+        assertEquals("1", rejected.getHeader("Retry-After"));
+        assertEquals(1, filter.availablePermits());
+    }
+
+    @Test
+    void asyncRequest_holdsPermitUntilComplete() throws Exception {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(1, Duration.ZERO);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAsyncSupported(true);
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+
+        assertEquals(0, filter.availablePermits());
+        ((MockAsyncContext) request.getAsyncContext()).complete();
+        assertEquals(1, filter.availablePermits());
+    }
+}
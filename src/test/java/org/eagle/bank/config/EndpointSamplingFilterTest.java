@@ -0,0 +1,50 @@
+package org.eagle.bank.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.spi.FilterReply;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EndpointSamplingFilterTest {
+
+    @Test
+    void keepsOneInNPerEndpoint() {
+        EndpointSamplingFilter filter = filter(3);
+
+        assertEquals(FilterReply.NEUTRAL, filter.decide(event(Level.INFO, "GET /v1/accounts")));
+        assertEquals(FilterReply.DENY, filter.decide(event(Level.INFO, "GET /v1/accounts")));
+        assertEquals(FilterReply.NEUTRAL, filter.decide(event(Level.INFO, "POST /v1/users")));
+        assertEquals(FilterReply.DENY, filter.decide(event(Level.INFO, "GET /v1/accounts")));
+        assertEquals(FilterReply.NEUTRAL, filter.decide(event(Level.INFO, "GET /v1/accounts")));
+    }
+
+    @Test
+    void warningsAndLinesOutsideRequests_alwaysPass() {
+        EndpointSamplingFilter filter = filter(1000);
+        filter.decide(event(Level.INFO, "GET /v1/accounts"));
+
+        assertEquals(FilterReply.NEUTRAL, filter.decide(event(Level.WARN, "GET /v1/accounts")));
+        assertEquals(FilterReply.NEUTRAL, filter.decide(event(Level.INFO, null)));
+        assertEquals(FilterReply.NEUTRAL, filter.decide(event(Level.INFO, null)));
+    }
+
+    private EndpointSamplingFilter filter(int sampleEvery) {
+        EndpointSamplingFilter filter = new EndpointSamplingFilter();
+        filter.setSampleEvery(sampleEvery);
+        filter.start();
+        return filter;
+    }
+
+    private LoggingEvent event(Level level, String endpoint) {
+        LoggingEvent event = new LoggingEvent();
+        event.setLevel(level);
+        event.setLoggerName("org.eagle.bank.Test");
+        event.setMessage("line");
+        event.setMDCPropertyMap(endpoint == null ? Map.of() : Map.of(RequestIdFilter.MDC_ENDPOINT, endpoint));
+        return event;
+    }
+}
@@ -0,0 +1,58 @@
+package org.eagle.bank.config;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestIdFilterTest {
+
+    RequestIdFilter filter = new RequestIdFilter();
+
+    @Test
+    void suppliedId_isLoggedAndEchoed() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v1/accounts/01000001/transactions");
+        request.addHeader(RequestIdFilter.HEADER, "abc-123");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AtomicReference<String> loggedId = new AtomicReference<>();
+        AtomicReference<String> loggedEndpoint = new AtomicReference<>();
+
+        filter.doFilter(request, response, (req, res) -> {
+            loggedId.set(MDC.get(RequestIdFilter.MDC_REQUEST_ID));
+            loggedEndpoint.set(MDC.get(RequestIdFilter.MDC_ENDPOINT));
+        });
+
+        assertEquals("abc-123", loggedId.get());
+        assertEquals("GET /v1/accounts/{id}/transactions", loggedEndpoint.get());
+        assertEquals("abc-123", response.getHeader(RequestIdFilter.HEADER));
+        assertNull(MDC.get(RequestIdFilter.MDC_REQUEST_ID));
+    }
+
+    @Test
+    void endpoint_collapsesOnlyIdSegments() {
+        assertEquals("GET /v1/users/{id}", RequestIdFilter.endpoint(new MockHttpServletRequest("GET", "/v1/users/usr-4f2a9")));
+        assertEquals("DELETE /v1/accounts/{id}",
+                RequestIdFilter.endpoint(new MockHttpServletRequest("DELETE", "/v1/accounts/01000001")));
+        assertEquals("GET /v1/accounts/{id}/transactions/{id}",
+                RequestIdFilter.endpoint(new MockHttpServletRequest("GET", "/v1/accounts/01000001/transactions/1051")));
+        assertEquals("POST /v1/auth/login", RequestIdFilter.endpoint(new MockHttpServletRequest("POST", "/v1/auth/login")));
+    }
+
+    @Test
+    void unsafeId_isReplaced() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/v1/auth/login");
+        request.addHeader(RequestIdFilter.HEADER, "bad id\nwith newline");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, (req, res) -> {
+        });
+
+        String generated = response.getHeader(RequestIdFilter.HEADER);
+        assertNotNull(generated);
+        assertNotEquals("bad id\nwith newline", generated);
+    }
+}
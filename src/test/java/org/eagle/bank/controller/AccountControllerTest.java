@@ -1,13 +1,13 @@
 package org.eagle.bank.controller;
 
-import jakarta.servlet.http.HttpServletRequest;
 import org.eagle.bank.controller.AccountController;
-import org.eagle.bank.controller.UserController;
 import org.eagle.bank.dto.BankAccountResponse;
 import org.eagle.bank.dto.CreateBankAccountRequest;
 import org.eagle.bank.dto.UpdateBankAccountRequest;
+import org.eagle.bank.model.AccountSnapshot;
 import org.eagle.bank.model.BankAccount;
 import org.eagle.bank.model.User;
+import org.eagle.bank.security.AuthenticatedUser;
 import org.eagle.bank.service.BankAccountService;
 import org.eagle.bank.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
@@ -22,11 +22,14 @@ import org.mockito.quality.Strictness;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -43,8 +46,7 @@ public class AccountControllerTest {
     @Mock
     UserService userService;
 
-    @Mock
-    HttpServletRequest httpServletRequest;
+    AuthenticatedUser principal = new AuthenticatedUser(1L, "john");
 
     @BeforeEach
     void setUp() {
@@ -53,49 +55,62 @@ public class AccountControllerTest {
 
     @Test
     void createAccount_unauthorized_returns401() {
-        when(httpServletRequest.getAttribute("authenticatedUserId")).thenReturn(null);
-
         CreateBankAccountRequest req = new CreateBankAccountRequest();
-        ResponseEntity<?> response = accountController.createAccount(req, httpServletRequest);
+        ResponseEntity<?> response = accountController.createAccount(req, null);
 
         assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
     }
 
+    @Test
+    void createAccount_success_usesUserReference() {
+        User user = new User();
+        user.setId(1L);
+        when(userService.getUserReference(1L)).thenReturn(user);
+        when(accountService.createAccount(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        CreateBankAccountRequest req = new CreateBankAccountRequest();
+        req.setAccountType(CreateBankAccountRequest.AccountTypeEnum.PERSONAL);
+        ResponseEntity<?> response = accountController.createAccount(req, principal);
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        verify(userService).getUserReference(1L);
+    }
 
     @Test
-    void getAccount_unauthorized_returns401() {
-        when(httpServletRequest.getAttribute("authenticatedUserId")).thenReturn(null);
+    void createAccount_balanceWithSubPennyPrecision_returns400() {
+        CreateBankAccountRequest req = new CreateBankAccountRequest();
+        req.setAccountType(CreateBankAccountRequest.AccountTypeEnum.PERSONAL);
+        req.setBalance(new BigDecimal("10.005"));
+
+        ResponseEntity<?> response = accountController.createAccount(req, principal);
 
-        ResponseEntity<?> response = accountController.getAccount("123", httpServletRequest);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verifyNoInteractions(accountService);
+    }
+
+
+    @Test
+    void getAccount_unauthorized_returns401() {
+        ResponseEntity<?> response = accountController.getAccount("123", null);
 
         assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
     }
 
     @Test
     void getAccount_forbidden_returns403() {
-        when(httpServletRequest.getAttribute("authenticatedUserId")).thenReturn(1L);
-        User user = new User();
-        user.setId(1L);
-        when(userService.getUserById(1L)).thenReturn(Optional.of(user));
-        when(accountService.getAccountByAccountNumber("123")).thenReturn(Optional.empty());
+        when(accountService.getAccountSnapshot("123", 1L)).thenReturn(Optional.empty());
 
-        ResponseEntity<?> response = accountController.getAccount("123", httpServletRequest);
+        ResponseEntity<?> response = accountController.getAccount("123", principal);
 
         assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
     }
 
     @Test
     void getAccount_success_returns200() {
-        when(httpServletRequest.getAttribute("authenticatedUserId")).thenReturn(1L);
-        User user = new User();
-        user.setId(1L);
-        when(userService.getUserById(1L)).thenReturn(Optional.of(user));
-        BankAccount acc = new BankAccount();
-        acc.setUser(user);
-        acc.setAccountType("PERSONAL");
-        when(accountService.getAccountByAccountNumber("123")).thenReturn(Optional.of(acc));
+        AccountSnapshot acc = new AccountSnapshot(1L, "123", "10-10-10", "Main", "PERSONAL", 1000L, 1L);
+        when(accountService.getAccountSnapshot("123", 1L)).thenReturn(Optional.of(acc));
 
-        ResponseEntity<?> response = accountController.getAccount("123", httpServletRequest);
+        ResponseEntity<?> response = accountController.getAccount("123", principal);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertTrue(response.getBody() instanceof BankAccountResponse);
@@ -103,22 +118,16 @@ public class AccountControllerTest {
 
     @Test
     void listAccounts_unauthorized_returns401() {
-        when(httpServletRequest.getAttribute("authenticatedUserId")).thenReturn(null);
-
-        ResponseEntity<?> response = accountController.listAccounts(httpServletRequest);
+        ResponseEntity<?> response = accountController.listAccounts(null);
 
         assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
     }
 
     @Test
     void listAccounts_success_returns200() {
-        when(httpServletRequest.getAttribute("authenticatedUserId")).thenReturn(1L);
-        User user = new User();
-        user.setId(1L);
-        when(userService.getUserById(1L)).thenReturn(Optional.of(user));
-        when(accountService.getAccountsByUser(user)).thenReturn(List.of());
+        when(accountService.getAccountSnapshotsByUserId(1L)).thenReturn(List.of());
 
-        ResponseEntity<?> response = accountController.listAccounts(httpServletRequest);
+        ResponseEntity<?> response = accountController.listAccounts(principal);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertTrue(response.getBody() instanceof List);
@@ -126,42 +135,34 @@ public class AccountControllerTest {
 
     @Test
     void updateAccount_unauthorized_returns401() {
-        when(httpServletRequest.getAttribute("authenticatedUserId")).thenReturn(null);
-
         UpdateBankAccountRequest req = new UpdateBankAccountRequest();
-        ResponseEntity<?> response = accountController.updateAccount("123", req, httpServletRequest);
+        ResponseEntity<?> response = accountController.updateAccount("123", req, null);
 
         assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
     }
 
     @Test
     void updateAccount_forbidden_returns403() {
-        when(httpServletRequest.getAttribute("authenticatedUserId")).thenReturn(1L);
-        User user = new User();
-        user.setId(1L);
-        when(userService.getUserById(1L)).thenReturn(Optional.of(user));
-        when(accountService.getAccountByAccountNumber("123")).thenReturn(Optional.empty());
+        when(accountService.getUserAccount("123", 1L)).thenReturn(Optional.empty());
 
         UpdateBankAccountRequest req = new UpdateBankAccountRequest();
-        ResponseEntity<?> response = accountController.updateAccount("123", req, httpServletRequest);
+        ResponseEntity<?> response = accountController.updateAccount("123", req, principal);
 
         assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
     }
 
     @Test
     void updateAccount_success_returns200() {
-        when(httpServletRequest.getAttribute("authenticatedUserId")).thenReturn(1L);
         User user = new User();
         user.setId(1L);
-        when(userService.getUserById(1L)).thenReturn(Optional.of(user));
         BankAccount acc = new BankAccount();
         acc.setUser(user);
         acc.setAccountType("PERSONAL");
-        when(accountService.getAccountByAccountNumber("123")).thenReturn(Optional.of(acc));
+        when(accountService.getUserAccount("123", 1L)).thenReturn(Optional.of(acc));
         when(accountService.updateAccount(any())).thenReturn(acc);
 
         UpdateBankAccountRequest req = new UpdateBankAccountRequest();
-        ResponseEntity<?> response = accountController.updateAccount("123", req, httpServletRequest);
+        ResponseEntity<?> response = accountController.updateAccount("123", req, principal);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertTrue(response.getBody() instanceof BankAccountResponse);
@@ -170,33 +171,27 @@ public class AccountControllerTest {
     @Test
     void deleteAccount_unauthorized_returns401() {
 
-        when(httpServletRequest.getAttribute("authenticatedUserId")).thenReturn(null);
-        ResponseEntity<?> response = accountController.deleteAccount("123", httpServletRequest);
+        ResponseEntity<?> response = accountController.deleteAccount("123", null);
         assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
     }
 
     @Test
     void deleteAccount_forbidden_returns403() {
-        when(httpServletRequest.getAttribute("authenticatedUserId")).thenReturn(1L);
-        User user = new User();
-        user.setId(1L);
-        when(userService.getUserById(1L)).thenReturn(Optional.of(user));
-        when(accountService.getAccountByAccountNumber("123")).thenReturn(Optional.empty());
-        ResponseEntity<?> response = accountController.deleteAccount("123", httpServletRequest);
+        when(accountService.getUserAccount("123", 1L)).thenReturn(Optional.empty());
+        ResponseEntity<?> response = accountController.deleteAccount("123", principal);
         assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
     }
 
     @Test
     void deleteAccount_success_returns204() {
-        when(httpServletRequest.getAttribute("authenticatedUserId")).thenReturn(1L);
         User user = new User();
         user.setId(1L);
-        when(userService.getUserById(1L)).thenReturn(Optional.of(user));
         BankAccount acc = new BankAccount();
         acc.setId(10L);
         acc.setUser(user);
-        when(accountService.getAccountByAccountNumber("123")).thenReturn(Optional.of(acc));
-        ResponseEntity<?> response = accountController.deleteAccount("123", httpServletRequest);
+        when(accountService.getUserAccount("123", 1L)).thenReturn(Optional.of(acc));
+        ResponseEntity<?> response = accountController.deleteAccount("123", principal);
         assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
+        verify(accountService).deleteAccount(acc);
     }
 }
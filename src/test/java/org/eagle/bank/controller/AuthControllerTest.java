@@ -1,7 +1,7 @@
 package org.eagle.bank.controller;
 
 import org.eagle.bank.model.User;
-import org.eagle.bank.security.JwtUtil;
+import org.eagle.bank.security.TokenService;
 import org.eagle.bank.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -9,14 +9,21 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SyncTaskExecutor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -29,7 +36,10 @@ public class AuthControllerTest {
     UserService userService;
 
     @Mock
-    JwtUtil jwtUtil;
+    TokenService tokenService;
+
+    @Spy
+    Executor blockingExecutor = new SyncTaskExecutor();
 
     @BeforeEach
     void setUp() {
@@ -45,12 +55,15 @@ public class AuthControllerTest {
         User user = new User();
         user.setUsername("testuser");
 
-        when(userService.authenticateUser("testuser", "testpass")).thenReturn(Optional.of(user));
-        when(jwtUtil.generateToken("testuser")).thenReturn("mocked-jwt-token");
+        when(userService.authenticateUser("testuser", "testpass")).thenReturn(CompletableFuture.completedFuture(Optional.of(user)));
+        when(tokenService.issue("testuser"))
+                .thenReturn(new TokenService.TokenPair("mocked-jwt-token", "mocked-refresh-token", 900));
 
-        ResponseEntity<Map<String, String>> response = authController.authenticate(loginRequest);
+        ResponseEntity<Map<String, Object>> response = authController.authenticate(loginRequest).join();
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("mocked-jwt-token", response.getBody().get("token"));
+        assertEquals("mocked-refresh-token", response.getBody().get("refreshToken"));
     }
 
     @Test
@@ -59,10 +72,45 @@ public class AuthControllerTest {
         loginRequest.username = "wronguser";
         loginRequest.password = "wrongpass";
 
-        when(userService.authenticateUser("wronguser", "wrongpass")).thenReturn(Optional.empty());
+        when(userService.authenticateUser("wronguser", "wrongpass")).thenReturn(CompletableFuture.completedFuture(Optional.empty()));
 
-        ResponseEntity<Map<String, String>> response = authController.authenticate(loginRequest);
+        ResponseEntity<Map<String, Object>> response = authController.authenticate(loginRequest).join();
 
         assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
     }
-}
\ No newline at end of file
+
+    @Test
+    void refresh_validToken_returnsNewPair() {
+        AuthController.RefreshRequest refreshRequest = new AuthController.RefreshRequest();
+        refreshRequest.refreshToken = "refresh";
+        when(tokenService.refresh("refresh"))
+                .thenReturn(Optional.of(new TokenService.TokenPair("access-2", "refresh-2", 900)));
+
+        ResponseEntity<Map<String, Object>> response = authController.refresh(refreshRequest);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("refresh-2", response.getBody().get("refreshToken"));
+    }
+
+    @Test
+    void refresh_rejectedToken_isUnauthorized() {
+        AuthController.RefreshRequest refreshRequest = new AuthController.RefreshRequest();
+        refreshRequest.refreshToken = "used";
+        when(tokenService.refresh("used")).thenReturn(Optional.empty());
+
+        assertEquals(HttpStatus.UNAUTHORIZED, authController.refresh(refreshRequest).getStatusCode());
+    }
+
+    @Test
+    void logout_endsSessionOfBearerToken() {
+        assertEquals(HttpStatus.NO_CONTENT, authController.logout("Bearer access").getStatusCode());
+        verify(tokenService).logout("access");
+    }
+
+    @Test
+    void logout_withoutBearerScheme_returns401() {
+        assertEquals(HttpStatus.UNAUTHORIZED, authController.logout("Bear").getStatusCode());
+        assertEquals(HttpStatus.UNAUTHORIZED, authController.logout("Basic am9objpzZWNyZXQ=").getStatusCode());
+        verify(tokenService, never()).logout(any());
+    }
+}
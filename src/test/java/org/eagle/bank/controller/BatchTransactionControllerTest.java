@@ -0,0 +1,214 @@
+package org.eagle.bank.controller;
+
+import org.eagle.bank.dto.BatchTransactionItem;
+import org.eagle.bank.dto.BatchTransactionResponse;
+import org.eagle.bank.dto.BatchTransactionResult;
+import org.eagle.bank.dto.CreateBatchTransactionRequest;
+import org.eagle.bank.dto.TransactionResponse;
+import org.eagle.bank.model.BankAccount;
+import org.eagle.bank.model.Transaction;
+import org.eagle.bank.security.AuthenticatedUser;
+import org.eagle.bank.service.BankAccountService;
+import org.eagle.bank.service.LedgerWriter;
+import org.eagle.bank.service.TransactionService;
+import org.eagle.bank.util.MapperUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness =  Strictness.LENIENT)
+public class BatchTransactionControllerTest {
+
+    @InjectMocks
+    BatchTransactionController batchController;
+
+    @Mock
+    TransactionService transactionService;
+
+    @Mock
+    BankAccountService accountService;
+
+    AuthenticatedUser principal = new AuthenticatedUser(1L, "john");
+
+    @Test
+    void createBatch_unauthorized_returns401() {
+        ResponseEntity<?> response = batchController.createBatchTransaction(request(null, item("01000001", "10", true)), null);
+
+        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+    }
+
+    @Test
+    void createBatch_empty_returns400() {
+        ResponseEntity<?> response = batchController.createBatchTransaction(request(null), principal);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verifyNoInteractions(transactionService);
+    }
+
+    @Test
+    void createBatch_atomicWithUnknownAccount_returns400AndPostsNothing() {
+        BankAccount acc = account("01000001");
+        when(accountService.getUserAccounts(anyCollection(), eq(1L))).thenReturn(Map.of("01000001", acc));
+
+        ResponseEntity<?> response = batchController.createBatchTransaction(
+                request(CreateBatchTransactionRequest.ModeEnum.ATOMIC, item("01000001", "10", true), item("01999999", "5", true)),
+                principal);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        List<BatchTransactionResult> results = ((BatchTransactionResponse) response.getBody()).getResults();
+        assertEquals(BatchTransactionResult.StatusEnum.NOT_POSTED, results.get(0).getStatus());
+        assertEquals(BatchTransactionResult.StatusEnum.FAILED, results.get(1).getStatus());
+        assertEquals("Account not found or forbidden", results.get(1).getError());
+        verifyNoInteractions(transactionService);
+    }
+
+    @Test
+    void createBatch_atomicAllPosted_returns201() {
+        BankAccount acc = account("01000001");
+        when(accountService.getUserAccounts(anyCollection(), eq(1L))).thenReturn(Map.of("01000001", acc));
+        when(transactionService.postAll(anyList(), eq(true))).thenAnswer(invocation ->
+                new LedgerWriter.Result(invocation.getArgument(0), List.of()));
+
+        try (MockedStatic<MapperUtil> mu = mockStatic(MapperUtil.class, CALLS_REAL_METHODS)) {
+            mu.when(() -> MapperUtil.toTransactionResponse(any())).thenReturn(new TransactionResponse());
+
+            ResponseEntity<?> response = batchController.createBatchTransaction(
+                    request(null, item("01000001", "10", true), item("01000001", "5", false)), principal);
+
+            assertEquals(HttpStatus.CREATED, response.getStatusCode());
+            BatchTransactionResponse body = (BatchTransactionResponse) response.getBody();
+            assertEquals(BatchTransactionResponse.ModeEnum.ATOMIC, body.getMode());
+            assertTrue(body.getResults().stream().allMatch(r -> r.getStatus() == BatchTransactionResult.StatusEnum.POSTED));
+        }
+        verify(transactionService, times(1)).postAll(anyList(), eq(true));
+    }
+
+    @Test
+    void createBatch_atomicInsufficientFunds_returns422() {
+        BankAccount acc = account("01000001");
+        when(accountService.getUserAccounts(anyCollection(), eq(1L))).thenReturn(Map.of("01000001", acc));
+        when(transactionService.postAll(anyList(), eq(true))).thenAnswer(invocation -> {
+            List<Transaction> postings = invocation.getArgument(0);
+            return new LedgerWriter.Result(List.of(), List.of(postings.get(1)));
+        });
+
+        ResponseEntity<?> response = batchController.createBatchTransaction(
+                request(CreateBatchTransactionRequest.ModeEnum.ATOMIC, item("01000001", "10", true), item("01000001", "500", false)),
+                principal);
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        List<BatchTransactionResult> results = ((BatchTransactionResponse) response.getBody()).getResults();
+        assertEquals(BatchTransactionResult.StatusEnum.NOT_POSTED, results.get(0).getStatus());
+        assertEquals(BatchTransactionResult.StatusEnum.FAILED, results.get(1).getStatus());
+        assertEquals("Insufficient funds", results.get(1).getError());
+    }
+
+    @Test
+    void createBatch_partial_reportsEachItem() {
+        BankAccount acc = account("01000001");
+        when(accountService.getUserAccounts(anyCollection(), eq(1L))).thenReturn(Map.of("01000001", acc));
+        when(transactionService.postAll(anyList(), eq(false))).thenAnswer(invocation -> {
+            List<Transaction> postings = invocation.getArgument(0);
+            return new LedgerWriter.Result(List.of(postings.get(0)), List.of(postings.get(1)));
+        });
+
+        try (MockedStatic<MapperUtil> mu = mockStatic(MapperUtil.class, CALLS_REAL_METHODS)) {
+            TransactionResponse txResp = new TransactionResponse();
+            mu.when(() -> MapperUtil.toTransactionResponse(any())).thenReturn(txResp);
+
+            ResponseEntity<?> response = batchController.createBatchTransaction(
+                    request(CreateBatchTransactionRequest.ModeEnum.PARTIAL,
+                            item("01000001", "10", true), item("01000001", "500", false), item("01000001", "-1", true)),
+                    principal);
+
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+            List<BatchTransactionResult> results = ((BatchTransactionResponse) response.getBody()).getResults();
+            assertEquals(BatchTransactionResult.StatusEnum.POSTED, results.get(0).getStatus());
+            assertSame(txResp, results.get(0).getTransaction());
+            assertEquals("Insufficient funds", results.get(1).getError());
+            assertEquals("Amount must be between 1.00 and 10000.00", results.get(2).getError());
+        }
+    }
+
+    @Test
+    void createBatch_partialAmountsOutOfRange_failOnlyThoseItems() {
+        BankAccount acc = account("01000001");
+        when(accountService.getUserAccounts(anyCollection(), eq(1L))).thenReturn(Map.of("01000001", acc));
+        when(transactionService.postAll(anyList(), eq(false))).thenAnswer(invocation ->
+                new LedgerWriter.Result(invocation.getArgument(0), List.of()));
+
+        try (MockedStatic<MapperUtil> mu = mockStatic(MapperUtil.class, CALLS_REAL_METHODS)) {
+            mu.when(() -> MapperUtil.toTransactionResponse(any())).thenReturn(new TransactionResponse());
+
+            ResponseEntity<?> response = batchController.createBatchTransaction(
+                    request(CreateBatchTransactionRequest.ModeEnum.PARTIAL, item("01000001", "0.99", true),
+                            item("01000001", "10000.00", true), item("01000001", "10000.01", true)),
+                    principal);
+
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+            List<BatchTransactionResult> results = ((BatchTransactionResponse) response.getBody()).getResults();
+            assertEquals("Amount must be between 1.00 and 10000.00", results.get(0).getError());
+            assertEquals(BatchTransactionResult.StatusEnum.POSTED, results.get(1).getStatus());
+            assertEquals("Amount must be between 1.00 and 10000.00", results.get(2).getError());
+        }
+        verify(transactionService).postAll(argThat((List<Transaction> postings) -> postings.size() == 1), eq(false));
+    }
+
+    @Test
+    void createBatch_atomicAmountOutOfRange_returns400AndPostsNothing() {
+        BankAccount acc = account("01000001");
+        when(accountService.getUserAccounts(anyCollection(), eq(1L))).thenReturn(Map.of("01000001", acc));
+
+        ResponseEntity<?> response = batchController.createBatchTransaction(
+                request(CreateBatchTransactionRequest.ModeEnum.ATOMIC, item("01000001", "10", true),
+                        item("01000001", "10000.01", false)),
+                principal);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        List<BatchTransactionResult> results = ((BatchTransactionResponse) response.getBody()).getResults();
+        assertEquals(BatchTransactionResult.StatusEnum.NOT_POSTED, results.get(0).getStatus());
+        assertEquals(BatchTransactionResult.StatusEnum.FAILED, results.get(1).getStatus());
+        assertEquals("Amount must be between 1.00 and 10000.00", results.get(1).getError());
+        verifyNoInteractions(transactionService);
+    }
+
+    private static CreateBatchTransactionRequest request(CreateBatchTransactionRequest.ModeEnum mode, BatchTransactionItem... items) {
+        CreateBatchTransactionRequest request = new CreateBatchTransactionRequest();
+        if (mode != null) {
+            request.setMode(mode);
+        }
+        request.setItems(List.of(items));
+        return request;
+    }
+
+    private static BatchTransactionItem item(String accountNumber, String amount, boolean deposit) {
+        BatchTransactionItem item = new BatchTransactionItem();
+        item.setAccountNumber(accountNumber);
+        item.setAmount(new BigDecimal(amount));
+        item.setType(deposit ? BatchTransactionItem.TypeEnum.DEPOSIT : BatchTransactionItem.TypeEnum.WITHDRAWAL);
+        return item;
+    }
+
+    private static BankAccount account(String accountNumber) {
+        BankAccount account = new BankAccount();
+        account.setId(1L);
+        account.setAccountNumber(accountNumber);
+        return account;
+    }
+}
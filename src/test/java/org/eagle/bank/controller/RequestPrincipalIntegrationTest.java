@@ -0,0 +1,83 @@
+package org.eagle.bank.controller;
+
+import org.eagle.bank.model.Address;
+import org.eagle.bank.model.User;
+import org.eagle.bank.repository.UserRepository;
+import org.eagle.bank.security.TokenService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Counts user repository round-trips per request to make sure controllers no longer reload the
+ * authenticated user that the JWT filter has already resolved.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class RequestPrincipalIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @SpyBean
+    private UserRepository userRepository;
+
+    private User user;
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        Address address = new Address(null, "1 Main St", "London", "London", "E1 1AA");
+        user = userRepository.save(new User(null, "Test User", "+44" + suffix, address,
+                suffix + "@example.com", "user-" + suffix, "encoded"));
+        token = tokenService.issue(user.getUsername()).accessToken();
+        clearInvocations(userRepository);
+    }
+
+    @Test
+    void listAccounts_resolvesUserOnceAndNeverReloadsIt() throws Exception {
+        mockMvc.perform(get("/v1/accounts").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        verify(userRepository, times(1)).findByUsername(user.getUsername());
+        verify(userRepository, never()).findById(any());
+        verifyNoMoreInteractions(userRepository);
+    }
+
+    @Test
+    void repeatedRequests_withSameToken_skipUserLookup() throws Exception {
+        mockMvc.perform(get("/v1/accounts").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+        clearInvocations(userRepository);
+
+        mockMvc.perform(get("/v1/accounts").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void getUser_loadsUserEntityExactlyOnce() throws Exception {
+        mockMvc.perform(get("/v1/users/" + user.getId()).header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        verify(userRepository, times(1)).findByUsername(user.getUsername());
+        verify(userRepository, times(1)).findById(user.getId());
+        verifyNoMoreInteractions(userRepository);
+    }
+}
@@ -1,14 +1,18 @@
 package org.eagle.bank.controller;
 
-import jakarta.servlet.http.HttpServletRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.eagle.bank.dto.CreateTransactionRequest;
+import org.eagle.bank.dto.ListTransactionsResponse;
 import org.eagle.bank.dto.TransactionResponse;
+import org.eagle.bank.exception.InsufficientFundsException;
 import org.eagle.bank.model.BankAccount;
 import org.eagle.bank.model.Transaction;
-import org.eagle.bank.model.User;
+import org.eagle.bank.security.AuthenticatedUser;
+import org.eagle.bank.service.BankAccountService;
+import org.eagle.bank.service.IdempotencyService;
 import org.eagle.bank.service.TransactionService;
-import org.eagle.bank.service.UserService;
 import org.eagle.bank.util.MapperUtil;
+import org.eagle.bank.util.TransactionCursor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -16,18 +20,27 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -42,10 +55,15 @@ public class TransactionControllerTest {
     TransactionService transactionService;
 
     @Mock
-    UserService userService;
+    BankAccountService accountService;
 
     @Mock
-    HttpServletRequest httpServletRequest;
+    IdempotencyService idempotencyService;
+
+    @Spy
+    ObjectMapper objectMapper = new ObjectMapper();
+
+    AuthenticatedUser principal = new AuthenticatedUser(1L, "john");
 
     @BeforeEach
     void setUp() {
@@ -54,42 +72,31 @@ public class TransactionControllerTest {
 
     @Test
     void createTransaction_unauthorized_returns401() {
-        when(httpServletRequest.getAttribute("authenticatedUserId")).thenReturn(null);
-
         CreateTransactionRequest req = new CreateTransactionRequest();
-        ResponseEntity<?> response = transactionController.createTransaction("123", req, httpServletRequest);
+        ResponseEntity<?> response = transactionController.createTransaction("123", req, null, null).join();
 
         assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
     }
 
     @Test
     void createTransaction_accountNotFound_returns404() {
-        when(httpServletRequest.getAttribute("authenticatedUserId")).thenReturn(1L);
-        User user = new User();
-        user.setId(1L);
-        user.setAccounts(List.of());
-        when(userService.getUserById(1L)).thenReturn(Optional.of(user));
-
+        when(accountService.getUserAccount("123", 1L)).thenReturn(Optional.empty());
         CreateTransactionRequest req = new CreateTransactionRequest();
-        ResponseEntity<?> response = transactionController.createTransaction("123", req, httpServletRequest);
+        ResponseEntity<?> response = transactionController.createTransaction("123", req, null, principal).join();
 
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
 
     @Test
     void createTransaction_invalidType_returns400() {
-        when(httpServletRequest.getAttribute("authenticatedUserId")).thenReturn(1L);
-        User user = new User();
-        user.setId(1L);
         BankAccount acc = new BankAccount();
         acc.setAccountNumber("123");
-        user.setAccounts(List.of(acc));
-        when(userService.getUserById(1L)).thenReturn(Optional.of(user));
+        when(accountService.getUserAccount("123", 1L)).thenReturn(Optional.of(acc));
 
         CreateTransactionRequest req = mock(CreateTransactionRequest.class);
         when(req.getType()).thenReturn(null);
 
-        ResponseEntity<?> response = transactionController.createTransaction("123", req, httpServletRequest);
+        ResponseEntity<?> response = transactionController.createTransaction("123", req, null, principal).join();
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         assertTrue(response.getBody().toString().contains("Invalid transaction type"));
@@ -97,55 +104,79 @@ public class TransactionControllerTest {
 
     @Test
     void createTransaction_negativeAmount_returns400() {
-        when(httpServletRequest.getAttribute("authenticatedUserId")).thenReturn(1L);
-        User user = new User();
-        user.setId(1L);
         BankAccount acc = new BankAccount();
         acc.setAccountNumber("123");
-        user.setAccounts(List.of(acc));
-        when(userService.getUserById(1L)).thenReturn(Optional.of(user));
+        when(accountService.getUserAccount("123", 1L)).thenReturn(Optional.of(acc));
 
         CreateTransactionRequest req = mock(CreateTransactionRequest.class);
         when(req.getType()).thenReturn(CreateTransactionRequest.TypeEnum.DEPOSIT);
         when(req.getAmount()).thenReturn(BigDecimal.valueOf(-100));
 
-        ResponseEntity<?> response = transactionController.createTransaction("123", req, httpServletRequest);
+        ResponseEntity<?> response = transactionController.createTransaction("123", req, null, principal).join();
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         assertTrue(response.getBody().toString().contains("Amount must be more than zero"));
     }
 
+    @Test
+    void createTransaction_subPennyAmount_returns400() {
+        BankAccount acc = new BankAccount();
+        acc.setAccountNumber("123");
+        when(accountService.getUserAccount("123", 1L)).thenReturn(Optional.of(acc));
+
+        CreateTransactionRequest req = mock(CreateTransactionRequest.class);
+        when(req.getType()).thenReturn(CreateTransactionRequest.TypeEnum.DEPOSIT);
+        when(req.getAmount()).thenReturn(new BigDecimal("10.001"));
+
+        ResponseEntity<?> response = transactionController.createTransaction("123", req, null, principal).join();
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("Amount must have at most 2 decimal places", response.getBody());
+        verifyNoInteractions(transactionService);
+    }
+
     @Test
     void createTransaction_withdrawalInsufficientFunds_returns400() {
-        when(httpServletRequest.getAttribute("authenticatedUserId")).thenReturn(1L);
-        User user = new User();
-        user.setId(1L);
         BankAccount acc = new BankAccount();
         acc.setAccountNumber("123");
         acc.setBalance(BigDecimal.valueOf(50));
-        user.setAccounts(List.of(acc));
-        when(userService.getUserById(1L)).thenReturn(Optional.of(user));
+        when(accountService.getUserAccount("123", 1L)).thenReturn(Optional.of(acc));
 
         CreateTransactionRequest req = mock(CreateTransactionRequest.class);
         when(req.getType()).thenReturn(CreateTransactionRequest.TypeEnum.WITHDRAWAL);
         when(req.getAmount()).thenReturn(BigDecimal.valueOf(100));
 
-        ResponseEntity<?> response = transactionController.createTransaction("123", req, httpServletRequest);
+        ResponseEntity<?> response = transactionController.createTransaction("123", req, null, principal).join();
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         assertTrue(response.getBody().toString().contains("Insufficient funds"));
     }
 
+    @Test
+    void createTransaction_withdrawalRejectedAtPosting_returns400() {
+        BankAccount acc = new BankAccount();
+        acc.setAccountNumber("123");
+        acc.setBalance(BigDecimal.valueOf(1000));
+        when(accountService.getUserAccount("123", 1L)).thenReturn(Optional.of(acc));
+
+        CreateTransactionRequest req = mock(CreateTransactionRequest.class);
+        when(req.getType()).thenReturn(CreateTransactionRequest.TypeEnum.WITHDRAWAL);
+        when(req.getAmount()).thenReturn(BigDecimal.valueOf(100));
+        when(transactionService.submitTransaction(eq(acc), any(Transaction.class)))
+                .thenReturn(CompletableFuture.failedFuture(new InsufficientFundsException("Insufficient funds")));
+
+        ResponseEntity<?> response = transactionController.createTransaction("123", req, null, principal).join();
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("Insufficient funds", response.getBody());
+    }
+
     @Test
     void createTransaction_success_returns201() {
-        when(httpServletRequest.getAttribute("authenticatedUserId")).thenReturn(1L);
-        User user = new User();
-        user.setId(1L);
         BankAccount acc = new BankAccount();
         acc.setAccountNumber("123");
         acc.setBalance(BigDecimal.valueOf(1000));
-        user.setAccounts(List.of(acc));
-        when(userService.getUserById(1L)).thenReturn(Optional.of(user));
+        when(accountService.getUserAccount("123", 1L)).thenReturn(Optional.of(acc));
 
         CreateTransactionRequest req = mock(CreateTransactionRequest.class);
         when(req.getType()).thenReturn(CreateTransactionRequest.TypeEnum.DEPOSIT);
@@ -155,63 +186,240 @@ public class TransactionControllerTest {
         Transaction createdTx = new Transaction();
 
         try (MockedStatic<MapperUtil> mu = mockStatic(MapperUtil.class)) {
-            mu.when(() -> MapperUtil.getTransaction(any(), any(), any())).thenReturn(tx);
-            when(transactionService.applyTransaction(acc, tx)).thenReturn(createdTx);
+            mu.when(() -> MapperUtil.getTransaction(any(CreateTransactionRequest.class), any())).thenReturn(tx);
+            when(transactionService.submitTransaction(acc, tx)).thenReturn(CompletableFuture.completedFuture(createdTx));
             TransactionResponse txResp = new TransactionResponse();
             mu.when(() -> MapperUtil.toTransactionResponse(createdTx)).thenReturn(txResp);
 
-            ResponseEntity<?> response = transactionController.createTransaction("123", req, httpServletRequest);
+            ResponseEntity<?> response = transactionController.createTransaction("123", req, null, principal).join();
 
             assertEquals(HttpStatus.CREATED, response.getStatusCode());
             assertSame(txResp, response.getBody());
         }
     }
 
+    @Test
+    void createTransaction_idempotentReplay_returnsStoredResponseWithoutPosting() {
+        CreateTransactionRequest req = mock(CreateTransactionRequest.class);
+        when(req.getType()).thenReturn(CreateTransactionRequest.TypeEnum.DEPOSIT);
+        when(req.getAmount()).thenReturn(BigDecimal.valueOf(100));
+        TransactionResponse stored = new TransactionResponse();
+        when(idempotencyService.claim(eq(1L), eq("key-1"), any()))
+                .thenReturn(new IdempotencyService.Claim(IdempotencyService.Outcome.REPLAY, stored, null));
+
+        ResponseEntity<?> response = transactionController.createTransaction("123", req, "key-1", principal).join();
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertSame(stored, response.getBody());
+        assertEquals("true", response.getHeaders().getFirst("Idempotent-Replayed"));
+        verifyNoInteractions(transactionService, accountService);
+    }
+
+    @Test
+    void createTransaction_idempotencyKeyReusedForDifferentRequest_returns422() {
+        CreateTransactionRequest req = mock(CreateTransactionRequest.class);
+        when(req.getType()).thenReturn(CreateTransactionRequest.TypeEnum.DEPOSIT);
+        when(req.getAmount()).thenReturn(BigDecimal.valueOf(100));
+        when(idempotencyService.claim(eq(1L), eq("key-1"), any()))
+                .thenReturn(new IdempotencyService.Claim(IdempotencyService.Outcome.MISMATCH, null, null));
+
+        ResponseEntity<?> response = transactionController.createTransaction("123", req, "key-1", principal).join();
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        verifyNoInteractions(transactionService);
+    }
+
+    @Test
+    void createTransaction_idempotencyKeyAcquired_postsAndCompletesKey() {
+        BankAccount acc = new BankAccount();
+        acc.setAccountNumber("123");
+        acc.setBalance(BigDecimal.valueOf(1000));
+        when(accountService.getUserAccount("123", 1L)).thenReturn(Optional.of(acc));
+        CreateTransactionRequest req = mock(CreateTransactionRequest.class);
+        when(req.getType()).thenReturn(CreateTransactionRequest.TypeEnum.DEPOSIT);
+        when(req.getAmount()).thenReturn(BigDecimal.valueOf(100));
+        when(idempotencyService.claim(eq(1L), eq("key-1"), any()))
+                .thenReturn(new IdempotencyService.Claim(IdempotencyService.Outcome.ACQUIRED, null, new CompletableFuture<>()));
+        Transaction tx = new Transaction();
+        Transaction createdTx = new Transaction();
+
+        try (MockedStatic<MapperUtil> mu = mockStatic(MapperUtil.class)) {
+            mu.when(() -> MapperUtil.getTransaction(any(CreateTransactionRequest.class), any())).thenReturn(tx);
+            when(transactionService.submitTransaction(acc, tx)).thenReturn(CompletableFuture.completedFuture(createdTx));
+            TransactionResponse txResp = new TransactionResponse();
+            mu.when(() -> MapperUtil.toTransactionResponse(createdTx)).thenReturn(txResp);
+
+            ResponseEntity<?> response = transactionController.createTransaction("123", req, "key-1", principal).join();
+
+            assertEquals(HttpStatus.CREATED, response.getStatusCode());
+            assertEquals("key-1", tx.getIdempotencyKey());
+            assertEquals(1L, tx.getIdempotencyUserId());
+            verify(idempotencyService).complete(1L, "key-1", txResp);
+            verify(idempotencyService, never()).release(any(), any());
+        }
+    }
+
+    @Test
+    void createTransaction_idempotencyKeyAcquiredButRejected_releasesKey() {
+        when(accountService.getUserAccount("123", 1L)).thenReturn(Optional.empty());
+        CreateTransactionRequest req = mock(CreateTransactionRequest.class);
+        when(idempotencyService.claim(eq(1L), eq("key-1"), any()))
+                .thenReturn(new IdempotencyService.Claim(IdempotencyService.Outcome.ACQUIRED, null, new CompletableFuture<>()));
+
+        ResponseEntity<?> response = transactionController.createTransaction("123", req, "key-1", principal).join();
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        verify(idempotencyService).release(1L, "key-1");
+        verify(idempotencyService, never()).complete(any(), any(), any());
+    }
+
+    @Test
+    void createTransaction_idempotencyKeyAcquiredButSubmissionRefused_releasesKey() {
+        BankAccount acc = new BankAccount();
+        acc.setAccountNumber("123");
+        acc.setBalance(BigDecimal.valueOf(1000));
+        when(accountService.getUserAccount("123", 1L)).thenReturn(Optional.of(acc));
+        CreateTransactionRequest req = mock(CreateTransactionRequest.class);
+        when(req.getType()).thenReturn(CreateTransactionRequest.TypeEnum.DEPOSIT);
+        when(req.getAmount()).thenReturn(BigDecimal.valueOf(100));
+        when(idempotencyService.claim(eq(1L), eq("key-1"), any()))
+                .thenReturn(new IdempotencyService.Claim(IdempotencyService.Outcome.ACQUIRED, null, new CompletableFuture<>()));
+        when(transactionService.submitTransaction(eq(acc), any()))
+                .thenThrow(new RejectedExecutionException("lanes are shut down"));
+
+        assertThrows(RejectedExecutionException.class,
+                () -> transactionController.createTransaction("123", req, "key-1", principal));
+
+        verify(idempotencyService).release(1L, "key-1");
+        verify(idempotencyService, never()).complete(any(), any(), any());
+    }
+
+    @Test
+    void createTransaction_missingAmount_returns400() {
+        BankAccount acc = new BankAccount();
+        acc.setAccountNumber("123");
+        when(accountService.getUserAccount("123", 1L)).thenReturn(Optional.of(acc));
+        CreateTransactionRequest req = mock(CreateTransactionRequest.class);
+        when(req.getType()).thenReturn(CreateTransactionRequest.TypeEnum.DEPOSIT);
+        when(req.getAmount()).thenReturn(null);
+
+        ResponseEntity<?> response = transactionController.createTransaction("123", req, null, principal).join();
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertTrue(response.getBody().toString().contains("Amount must be more than zero"));
+    }
+
     // --- listTransactions ---
 
     @Test
     void listTransactions_unauthorized_returns401() {
-        when(httpServletRequest.getAttribute("authenticatedUserId")).thenReturn(null);
-
-        ResponseEntity<?> response = transactionController.listTransactions("123", httpServletRequest);
+        ResponseEntity<?> response = transactionController.listTransactions("123", null, null, null);
 
         assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
     }
 
     @Test
     void listTransactions_accountNotFound_returns404() {
-        when(httpServletRequest.getAttribute("authenticatedUserId")).thenReturn(1L);
-        User user = new User();
-        user.setId(1L);
-        user.setAccounts(List.of());
-        when(userService.getUserById(1L)).thenReturn(Optional.of(user));
-
-        ResponseEntity<?> response = transactionController.listTransactions("123", httpServletRequest);
+        when(accountService.getUserAccount("123", 1L)).thenReturn(Optional.empty());
+        ResponseEntity<?> response = transactionController.listTransactions("123", null, null, principal);
 
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
 
     @Test
     void listTransactions_success_returns200() {
-        when(httpServletRequest.getAttribute("authenticatedUserId")).thenReturn(1L);
-        User user = new User();
-        user.setId(1L);
         BankAccount acc = new BankAccount();
         acc.setAccountNumber("123");
-        user.setAccounts(List.of(acc));
-        when(userService.getUserById(1L)).thenReturn(Optional.of(user));
+        when(accountService.getUserAccount("123", 1L)).thenReturn(Optional.of(acc));
 
         List<Transaction> txList = List.of(new Transaction());
-        when(transactionService.getTransactionsByAccount(acc)).thenReturn(txList);
+        TransactionCursor next = new TransactionCursor(Instant.parse("2024-01-01T00:00:00Z"), 7L);
+        when(transactionService.getTransactionPage(acc, null, TransactionController.DEFAULT_PAGE_SIZE))
+                .thenReturn(new TransactionService.TransactionPage(txList, next));
 
         try (MockedStatic<MapperUtil> mu = mockStatic(MapperUtil.class)) {
             List<TransactionResponse> respList = List.of(new TransactionResponse());
             mu.when(() -> MapperUtil.toTransactionResponseList(txList)).thenReturn(respList);
 
-            ResponseEntity<?> response = transactionController.listTransactions("123", httpServletRequest);
+            ResponseEntity<?> response = transactionController.listTransactions("123", null, null, principal);
+
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+            ListTransactionsResponse body = (ListTransactionsResponse) response.getBody();
+            assertSame(respList, body.getTransactions());
+            assertEquals(next.encode(), body.getNext());
+        }
+    }
+
+    @Test
+    void listTransactions_withCursor_passesDecodedPosition() {
+        BankAccount acc = new BankAccount();
+        when(accountService.getUserAccount("123", 1L)).thenReturn(Optional.of(acc));
+        TransactionCursor cursor = new TransactionCursor(Instant.parse("2024-01-01T00:00:00Z"), 7L);
+        when(transactionService.getTransactionPage(acc, cursor, 10))
+                .thenReturn(new TransactionService.TransactionPage(List.of(), null));
+
+        ResponseEntity<?> response = transactionController.listTransactions("123", 10, cursor.encode(), principal);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNull(((ListTransactionsResponse) response.getBody()).getNext());
+    }
+
+    @Test
+    void listTransactions_invalidCursor_returns400() {
+        ResponseEntity<?> response = transactionController.listTransactions("123", null, "not-a-cursor", principal);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("Invalid cursor", response.getBody());
+    }
+
+    @Test
+    void listTransactions_limitOutOfRange_returns400() {
+        ResponseEntity<?> response = transactionController.listTransactions("123", 0, null, principal);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    // --- exportTransactions ---
+
+    @Test
+    void exportTransactions_accountNotFound_returns404() {
+        when(accountService.getUserAccount("123", 1L)).thenReturn(Optional.empty());
+
+        ResponseEntity<StreamingResponseBody> response = transactionController.exportTransactions("123", principal);
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    void exportTransactions_writesOneJsonLinePerTransaction() throws Exception {
+        BankAccount acc = new BankAccount();
+        when(accountService.getUserAccount("123", 1L)).thenReturn(Optional.of(acc));
+        Transaction first = new Transaction();
+        Transaction second = new Transaction();
+        doAnswer(invocation -> {
+            Consumer<Transaction> consumer = invocation.getArgument(1);
+            consumer.accept(first);
+            consumer.accept(second);
+            return null;
+        }).when(transactionService).streamTransactions(eq(acc), any());
+
+        try (MockedStatic<MapperUtil> mu = mockStatic(MapperUtil.class)) {
+            TransactionResponse firstResp = new TransactionResponse();
+            firstResp.setId("1");
+            TransactionResponse secondResp = new TransactionResponse();
+            secondResp.setId("2");
+            mu.when(() -> MapperUtil.toTransactionResponse(first)).thenReturn(firstResp);
+            mu.when(() -> MapperUtil.toTransactionResponse(second)).thenReturn(secondResp);
+
+            ResponseEntity<StreamingResponseBody> response = transactionController.exportTransactions("123", principal);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            response.getBody().writeTo(out);
 
             assertEquals(HttpStatus.OK, response.getStatusCode());
-            assertSame(respList, response.getBody());
+            String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+            assertEquals(2, lines.length);
+            assertTrue(lines[0].contains("\"id\":\"1\""));
+            assertTrue(lines[1].contains("\"id\":\"2\""));
         }
     }
 
@@ -219,51 +427,36 @@ public class TransactionControllerTest {
 
     @Test
     void getTransaction_unauthorized_returns401() {
-        when(httpServletRequest.getAttribute("authenticatedUserId")).thenReturn(null);
-
-        ResponseEntity<?> response = transactionController.getTransaction("123", 1L, httpServletRequest);
+        ResponseEntity<?> response = transactionController.getTransaction("123", 1L, null);
 
         assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
     }
 
     @Test
     void getTransaction_accountNotFound_returns404() {
-        when(httpServletRequest.getAttribute("authenticatedUserId")).thenReturn(1L);
-        User user = new User();
-        user.setId(1L);
-        user.setAccounts(List.of());
-        when(userService.getUserById(1L)).thenReturn(Optional.of(user));
-
-        ResponseEntity<?> response = transactionController.getTransaction("123", 1L, httpServletRequest);
+        when(accountService.getUserAccount("123", 1L)).thenReturn(Optional.empty());
+        ResponseEntity<?> response = transactionController.getTransaction("123", 1L, principal);
 
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
 
     @Test
     void getTransaction_transactionNotFound_returns404() {
-        when(httpServletRequest.getAttribute("authenticatedUserId")).thenReturn(1L);
-        User user = new User();
-        user.setId(1L);
         BankAccount acc = new BankAccount();
         acc.setAccountNumber("123");
-        user.setAccounts(List.of(acc));
-        when(userService.getUserById(1L)).thenReturn(Optional.of(user));
+        when(accountService.getUserAccount("123", 1L)).thenReturn(Optional.of(acc));
         when(transactionService.getTransactionByIdAndAccount(1L, acc)).thenReturn(Optional.empty());
 
-        ResponseEntity<?> response = transactionController.getTransaction("123", 1L, httpServletRequest);
+        ResponseEntity<?> response = transactionController.getTransaction("123", 1L, principal);
 
         assertEquals(404, response.getStatusCodeValue());
     }
 
     @Test
     void getTransaction_success_returns200() {
-        when(httpServletRequest.getAttribute("authenticatedUserId")).thenReturn(1L);
-        User user = new User();
-        user.setId(1L);
         BankAccount acc = new BankAccount();
         acc.setAccountNumber("123");
-        user.setAccounts(List.of(acc));
-        when(userService.getUserById(1L)).thenReturn(Optional.of(user));
+        when(accountService.getUserAccount("123", 1L)).thenReturn(Optional.of(acc));
         Transaction tx = new Transaction();
         when(transactionService.getTransactionByIdAndAccount(1L, acc)).thenReturn(Optional.of(tx));
 
@@ -271,7 +464,7 @@ public class TransactionControllerTest {
             TransactionResponse txResp = new TransactionResponse();
             mu.when(() -> MapperUtil.toTransactionResponse(tx)).thenReturn(txResp);
 
-            ResponseEntity<?> response = transactionController.getTransaction("123", 1L, httpServletRequest);
+            ResponseEntity<?> response = transactionController.getTransaction("123", 1L, principal);
 
             assertEquals(HttpStatus.OK, response.getStatusCode());
             assertSame(txResp, response.getBody());
@@ -0,0 +1,83 @@
+package org.eagle.bank.controller;
+
+import org.eagle.bank.model.Address;
+import org.eagle.bank.model.BankAccount;
+import org.eagle.bank.model.Transaction;
+import org.eagle.bank.model.User;
+import org.eagle.bank.repository.BankAccountRepository;
+import org.eagle.bank.repository.TransactionRepository;
+import org.eagle.bank.repository.UserRepository;
+import org.eagle.bank.security.TokenService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Reads transactions back through the API with {@code open-in-view} off, where a response that touches a lazy
+ * association the repository did not fetch fails instead of quietly issuing another query.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class TransactionReadIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BankAccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    private BankAccount account;
+    private Transaction transaction;
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        Address address = new Address(null, "1 Main St", "London", "London", "E1 1AA");
+        User user = userRepository.save(new User(null, "Test User", "+44" + suffix, address,
+                suffix + "@example.com", "user-" + suffix, "encoded"));
+        String accountNumber = "01" + ThreadLocalRandom.current().nextInt(100_000, 1_000_000);
+        account = accountRepository.save(new BankAccount(null, "Personal", accountNumber, "10-" + suffix,
+                "personal", new BigDecimal("100.00"), user, null));
+        transaction = transactionRepository.save(new Transaction(null, Transaction.TransactionType.DEPOSIT,
+                new BigDecimal("100.00"), Instant.now(), account, "opening"));
+        token = tokenService.issue(user.getUsername()).accessToken();
+    }
+
+    @Test
+    void getTransaction_mapsAccountOutsideTheSession() throws Exception {
+        mockMvc.perform(get("/v1/accounts/" + account.getAccountNumber() + "/transactions/" + transaction.getId())
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(transaction.getId().toString()));
+    }
+
+    @Test
+    void listTransactions_mapsAccountOutsideTheSession() throws Exception {
+        mockMvc.perform(get("/v1/accounts/" + account.getAccountNumber() + "/transactions")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transactions[0].id").value(transaction.getId().toString()));
+    }
+}
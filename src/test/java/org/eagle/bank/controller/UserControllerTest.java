@@ -1,6 +1,5 @@
 package org.eagle.bank.controller;
 
-import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.ConstraintViolationException;
 import org.eagle.bank.JsonReader;
 import org.eagle.bank.dto.CreateUserRequest;
@@ -8,6 +7,8 @@ import org.eagle.bank.dto.UpdateUserRequest;
 import org.eagle.bank.dto.UserResponse;
 import org.eagle.bank.exception.UserAlreadyExistsException;
 import org.eagle.bank.model.User;
+import org.eagle.bank.security.AuthenticatedUser;
+import org.eagle.bank.service.BankAccountService;
 import org.eagle.bank.service.UserService;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -29,6 +30,7 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -44,7 +46,9 @@ public class UserControllerTest {
     UserService userService;
 
     @Mock
-    HttpServletRequest httpServletRequest;
+    BankAccountService accountService;
+
+    AuthenticatedUser principal = new AuthenticatedUser(1L, "john");
 
     @BeforeEach
     void setUp() {
@@ -93,10 +97,9 @@ public class UserControllerTest {
         user.setId(1L);
         user.setUsername("john");
 
-        when(httpServletRequest.getAttribute("authenticatedUserId")).thenReturn(1L);
         when(userService.getUserById(1L)).thenReturn(Optional.of(user));
 
-        ResponseEntity<?> response = userController.getUser(1L, httpServletRequest);
+        ResponseEntity<?> response = userController.getUser(1L, principal);
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertTrue(response.getBody() instanceof UserResponse);
         assertEquals("john", ((UserResponse) response.getBody()).getUsername());
@@ -104,23 +107,19 @@ public class UserControllerTest {
 
     @Test
     void getUser_notFound() {
-        when(httpServletRequest.getAttribute("authenticatedUserId")).thenReturn(1L);
         when(userService.getUserById(1L)).thenReturn(Optional.empty());
 
-        ResponseEntity<?> response = userController.getUser(1L, httpServletRequest);
+        ResponseEntity<?> response = userController.getUser(1L, principal);
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
 
     @Test
     void getUser_forbidden() {
-        User user = new User();
-        user.setId(2L);
-
-        when(httpServletRequest.getAttribute("authenticatedUserId")).thenReturn(2L);
-        when(userService.getUserById(2L)).thenReturn(Optional.of(user));
+        AuthenticatedUser otherUser = new AuthenticatedUser(2L, "jane");
 
-        ResponseEntity<?> response = userController.getUser(1L, httpServletRequest);
+        ResponseEntity<?> response = userController.getUser(1L, otherUser);
         assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
+        verify(userService, never()).getUserById(any());
     }
 
     @Test
@@ -131,11 +130,10 @@ public class UserControllerTest {
         User user = new User();
         user.setId(1L);
 
-        when(httpServletRequest.getAttribute("authenticatedUserId")).thenReturn(1L);
         when(userService.getUserById(1L)).thenReturn(Optional.of(user));
         when(userService.updateUser(any(User.class))).thenReturn(user);
 
-        ResponseEntity<?> response = userController.updateUser(1L, updateReq, httpServletRequest);
+        ResponseEntity<?> response = userController.updateUser(1L, updateReq, principal);
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertTrue(response.getBody() instanceof UserResponse);
     }
@@ -144,62 +142,53 @@ public class UserControllerTest {
     void updateUser_notFound() {
         UpdateUserRequest updateReq = new UpdateUserRequest();
 
-        when(httpServletRequest.getAttribute("authenticatedUserId")).thenReturn(1L);
         when(userService.getUserById(1L)).thenReturn(Optional.empty());
 
-        ResponseEntity<?> response = userController.updateUser(1L, updateReq, httpServletRequest);
+        ResponseEntity<?> response = userController.updateUser(1L, updateReq, principal);
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
 
     @Test
     void updateUser_forbidden() {
         UpdateUserRequest updateReq = new UpdateUserRequest();
-        User user = new User();
-        user.setId(2L);
-
-        when(httpServletRequest.getAttribute("authenticatedUserId")).thenReturn(2L);
-        when(userService.getUserById(2L)).thenReturn(Optional.of(user));
+        AuthenticatedUser otherUser = new AuthenticatedUser(2L, "jane");
 
-        ResponseEntity<?> response = userController.updateUser(1L, updateReq, httpServletRequest);
+        ResponseEntity<?> response = userController.updateUser(1L, updateReq, otherUser);
         assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
     }
 
     @Test
     void deleteUser_success() {
-        User user = new User();
-        user.setId(1L);
-        user.setAccounts(Collections.emptyList());
-
-        when(httpServletRequest.getAttribute("authenticatedUserId")).thenReturn(1L);
-        when(userService.getUserById(1L)).thenReturn(Optional.of(user));
-
-        ResponseEntity<?> response = userController.deleteUser(1L, httpServletRequest);
+        ResponseEntity<?> response = userController.deleteUser(1L, principal);
         assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
         assertNull(response.getBody());
         verify(userService).deleteUser(1L);
+        verify(userService, never()).getUserById(any());
     }
 
     @Test
     void deleteUser_notFound() {
-        when(httpServletRequest.getAttribute("authenticatedUserId")).thenReturn(1L);
-        when(userService.getUserById(1L)).thenReturn(Optional.empty());
-
-        ResponseEntity<?> response = userController.deleteUser(1L, httpServletRequest);
+        ResponseEntity<?> response = userController.deleteUser(1L, null);
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
 
     @Test
     void deleteUser_forbidden() {
-        User user = new User();
-        user.setId(2L);
-
-        when(httpServletRequest.getAttribute("authenticatedUserId")).thenReturn(2L);
-        when(userService.getUserById(2L)).thenReturn(Optional.of(user));
+        AuthenticatedUser otherUser = new AuthenticatedUser(2L, "jane");
 
-        ResponseEntity<?> response = userController.deleteUser(1L, httpServletRequest);
+        ResponseEntity<?> response = userController.deleteUser(1L, otherUser);
         assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
     }
 
+    @Test
+    void deleteUser_withAccounts_returnsConflict() {
+        when(accountService.hasAccounts(1L)).thenReturn(true);
+
+        ResponseEntity<?> response = userController.deleteUser(1L, principal);
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        verify(userService, never()).deleteUser(any());
+    }
+
 
 
 }
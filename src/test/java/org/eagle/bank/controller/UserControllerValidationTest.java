@@ -38,6 +38,9 @@ class UserControllerValidationTest {
     @MockBean
     private UserService userService;
 
+    @MockBean
+    private BankAccountService accountService;
+
     @MockBean
      private JwtUtil jwtUtil;
 
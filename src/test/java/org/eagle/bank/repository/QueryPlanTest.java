@@ -0,0 +1,104 @@
+package org.eagle.bank.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Asks the database for the plan of each hot query, written the way Hibernate issues it, and fails if one of them
+ * would scan the whole table instead of using an index. Runs against whichever schema the active profile builds:
+ * the entity mappings by default, the Flyway migrations under pgcompat.
+ */
+@SpringBootTest
+class QueryPlanTest {
+
+    private static final Timestamp NOW = Timestamp.from(Instant.parse("2024-01-01T00:00:00Z"));
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // H2 does not read an index backwards, so for a newest-first page it may pick the foreign key index on
+    // account_id over idx_transaction_account_timestamp; either is a lookup by account, which is what is checked
+    @Test
+    void transactionPage_readsByAccount() {
+        assertLooksUp("account_id",
+                "select t.* from transaction t where t.account_id = ? order by t.timestamp desc, t.id desc limit 20",
+                1L);
+    }
+
+    @Test
+    void transactionPageAfterCursor_readsByAccount() {
+        assertLooksUp("account_id",
+                "select t.* from transaction t where t.account_id = ? " +
+                        "and (t.timestamp < ? or (t.timestamp = ? and t.id < ?)) " +
+                        "order by t.timestamp desc, t.id desc limit 20",
+                1L, NOW, NOW, 100L);
+    }
+
+    @Test
+    void transactionById_usesPrimaryKey() {
+        assertNoTableScan("select t.* from transaction t where t.id = ? and t.account_id = ?", 1L, 1L);
+    }
+
+    @Test
+    void settledTransactions_readAccountIndex() {
+        assertUsesIndex("idx_transaction_account_timestamp",
+                "select t.timestamp, t.id from transaction t where t.account_id = ? " +
+                        "and (t.timestamp > ? or (t.timestamp = ? and t.id > ?)) and t.timestamp < ? " +
+                        "order by t.timestamp desc, t.id desc limit 1",
+                1L, NOW, NOW, 0L, NOW);
+    }
+
+    // H2 indexes foreign keys itself and may pick that index over idx_bank_account_user, which is there for
+    // databases that do not
+    @Test
+    void accountsOfUser_readByUser() {
+        assertLooksUp("user_id", "select a.* from bank_account a where a.user_id = ?", 1L);
+    }
+
+    @Test
+    void accountByNumberAndOwner_usesIndex() {
+        assertNoTableScan("select a.* from bank_account a where a.account_number = ? and a.user_id = ?",
+                "01000001", 1L);
+    }
+
+    @Test
+    void userByUsername_usesIndex() {
+        assertNoTableScan("select u.* from users u where u.username = ?", "alice");
+    }
+
+    @Test
+    void idempotencyRecordByKey_usesIndex() {
+        assertNoTableScan("select r.* from idempotency_record r where r.user_id = ? and r.idempotency_key = ?",
+                1L, "key-1");
+    }
+
+    @Test
+    void expiredIdempotencyRecords_useCreatedAtIndex() {
+        assertUsesIndex("idx_idempotency_created_at", "delete from idempotency_record where created_at < ?", NOW);
+    }
+
+    private void assertUsesIndex(String index, String sql, Object... args) {
+        String plan = assertNoTableScan(sql, args);
+        assertTrue(plan.contains(index), () -> "expected " + index + " in plan:\n" + plan);
+    }
+
+    private void assertLooksUp(String column, String sql, Object... args) {
+        String plan = assertNoTableScan(sql, args);
+        assertTrue(plan.contains(": " + column + " = ?1"),
+                () -> "expected a lookup on " + column + " in plan:\n" + plan);
+    }
+
+    private String assertNoTableScan(String sql, Object... args) {
+        String plan = jdbcTemplate.queryForObject("explain " + sql, String.class, args).toLowerCase(Locale.ROOT);
+        assertFalse(plan.contains("tablescan"), () -> "full table scan in plan:\n" + plan);
+        return plan;
+    }
+}
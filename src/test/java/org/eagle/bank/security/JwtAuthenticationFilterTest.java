@@ -1,5 +1,8 @@
 package org.eagle.bank.security;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -16,7 +19,9 @@ import org.mockito.quality.Strictness;
 import org.springframework.security.core.context.SecurityContextHolder;
 
 import java.io.IOException;
+import java.util.Date;
 import java.util.Optional;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -25,6 +30,8 @@ import static org.mockito.Mockito.*;
 @MockitoSettings(strictness =  Strictness.LENIENT)
 class JwtAuthenticationFilterTest {
 
+    private static final UUID SESSION = UUID.randomUUID();
+
     @Mock
     JwtUtil jwtUtil;
 
@@ -40,12 +47,20 @@ class JwtAuthenticationFilterTest {
     @Mock
     FilterChain filterChain;
 
+    @Spy
+    TokenCache tokenCache = new TokenCache(100);
+
+    @Spy
+    RevocationList revocationList = new RevocationList();
+
+    @Spy
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     JwtAuthenticationFilter jwtAuthenticationFilter;
 
     @BeforeEach
     void setUp() {
-        MockitoAnnotations.openMocks(this);
         SecurityContextHolder.clearContext();
     }
 
@@ -77,12 +92,97 @@ class JwtAuthenticationFilterTest {
     void doFilterInternal_invalidJwt_doesNotSetAuth() throws ServletException, IOException {
         when(request.getRequestURI()).thenReturn("/v1/protected");
         when(request.getHeader("Authorization")).thenReturn("Bearer invalid.jwt.token");
-        when(jwtUtil.extractUsername("invalid.jwt.token")).thenReturn("john");
-        when(jwtUtil.validateToken("invalid.jwt.token", "john")).thenReturn(false);
+        Claims claims = claims("john", -60_000);
+        when(jwtUtil.parse("invalid.jwt.token")).thenReturn(new JwtUtil.ParsedToken(claims, null));
+        when(jwtUtil.isTokenValid(claims)).thenReturn(false);
 
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
 
         assertNull(SecurityContextHolder.getContext().getAuthentication());
         verify(filterChain).doFilter(request, response);
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    void doFilterInternal_validJwt_isVerifiedOnceAndCached() throws ServletException, IOException {
+        when(request.getRequestURI()).thenReturn("/v1/protected");
+        when(request.getHeader("Authorization")).thenReturn("Bearer valid.jwt.token");
+        Claims claims = claims("john", 60_000);
+        when(jwtUtil.parse("valid.jwt.token")).thenReturn(new JwtUtil.ParsedToken(claims, null));
+        when(jwtUtil.isTokenValid(claims)).thenReturn(true);
+        User user = new User();
+        user.setId(7L);
+        user.setUsername("john");
+        when(userService.getUserByUsername("john")).thenReturn(Optional.of(user));
+
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+        SecurityContextHolder.clearContext();
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        AuthenticatedUser expected = new AuthenticatedUser(7L, "john");
+        assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+        verify(request, times(2)).setAttribute(AuthenticatedUser.REQUEST_ATTRIBUTE, expected);
+        verify(jwtUtil, times(1)).parse("valid.jwt.token");
+        verify(userService, times(1)).getUserByUsername("john");
+        assertEquals(1, meterRegistry.get("jwt.authentication").tag("outcome", "verified").timer().count());
+        assertEquals(1, meterRegistry.get("jwt.authentication").tag("outcome", "cached").timer().count());
+    }
+
+    @Test
+    void doFilterInternal_userDeleted_evictsCachedToken() throws ServletException, IOException {
+        when(request.getRequestURI()).thenReturn("/v1/protected");
+        when(request.getHeader("Authorization")).thenReturn("Bearer valid.jwt.token");
+        Claims claims = claims("john", 60_000);
+        when(jwtUtil.parse("valid.jwt.token")).thenReturn(new JwtUtil.ParsedToken(claims, null));
+        when(jwtUtil.isTokenValid(claims)).thenReturn(true);
+        User user = new User();
+        user.setId(7L);
+        when(userService.getUserByUsername("john")).thenReturn(Optional.of(user));
+
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+        tokenCache.evictUser(7L);
+
+        assertTrue(tokenCache.get("valid.jwt.token").isEmpty());
+    }
+
+    @Test
+    void doFilterInternal_revokedSession_isNotAuthenticatedEvenWhenCached() throws ServletException, IOException {
+        when(request.getRequestURI()).thenReturn("/v1/protected");
+        when(request.getHeader("Authorization")).thenReturn("Bearer valid.jwt.token");
+        Claims claims = claims("john", 60_000);
+        when(jwtUtil.parse("valid.jwt.token")).thenReturn(new JwtUtil.ParsedToken(claims, null));
+        when(jwtUtil.isTokenValid(claims)).thenReturn(true);
+        User user = new User();
+        user.setId(7L);
+        when(userService.getUserByUsername("john")).thenReturn(Optional.of(user));
+
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+        SecurityContextHolder.clearContext();
+        revocationList.revoke(SESSION, System.currentTimeMillis() + 60_000);
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verify(filterChain, times(2)).doFilter(request, response);
+    }
+
+    @Test
+    void doFilterInternal_expiredToken_continuesUnauthenticated() throws ServletException, IOException {
+        when(request.getRequestURI()).thenReturn("/v1/protected");
+        when(request.getHeader("Authorization")).thenReturn("Bearer expired.jwt.token");
+        when(jwtUtil.parse("expired.jwt.token")).thenReturn(new JwtUtil.ParsedToken(null, JwtUtil.Failure.EXPIRED));
+
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verify(filterChain).doFilter(request, response);
+        verifyNoInteractions(userService);
+    }
+
+    private Claims claims(String subject, long expiresInMillis) {
+        return Jwts.claims()
+                .subject(subject)
+                .add(JwtUtil.CLAIM_SESSION, SESSION.toString())
+                .expiration(new Date(System.currentTimeMillis() + expiresInMillis))
+                .build();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,38 @@
+package org.eagle.bank.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JwtUtilTest {
+
+    JwtUtil jwtUtil = new JwtUtil("eagle-bank-secret-key-eagle-bank-secret-key");
+
+    @Test
+    void parse_validToken_returnsSubjectAndExpiry() {
+        Instant expiresAt = Instant.now().plusSeconds(60);
+        String token = jwtUtil.generateAccessToken("john", UUID.randomUUID(), Instant.now(), expiresAt);
+
+        JwtUtil.ParsedToken parsed = jwtUtil.parse(token);
+
+        assertTrue(parsed.isValid());
+        assertEquals("john", parsed.subject());
+        assertEquals(expiresAt.getEpochSecond(), parsed.expiration().toInstant().getEpochSecond());
+    }
+
+    @Test
+    void parse_reportsWhyATokenWasRejected() {
+        Instant past = Instant.now().minusSeconds(120);
+        String expired = jwtUtil.generateAccessToken("john", UUID.randomUUID(), past, past.plusSeconds(60));
+        String foreign = new JwtUtil("another-secret-key-another-secret-key-1234")
+                .generateAccessToken("john", UUID.randomUUID(), Instant.now(), Instant.now().plusSeconds(60));
+
+        assertEquals(JwtUtil.Failure.EXPIRED, jwtUtil.parse(expired).failure());
+        assertEquals(JwtUtil.Failure.BAD_SIGNATURE, jwtUtil.parse(foreign).failure());
+        assertEquals(JwtUtil.Failure.MALFORMED, jwtUtil.parse("not-a-jwt").failure());
+        assertEquals(JwtUtil.Failure.MALFORMED, jwtUtil.parse("").failure());
+    }
+}
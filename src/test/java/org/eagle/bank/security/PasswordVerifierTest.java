@@ -0,0 +1,86 @@
+package org.eagle.bank.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class PasswordVerifierTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    PasswordVerifier passwordVerifier;
+
+    @AfterEach
+    void tearDown() {
+        passwordVerifier.shutdown();
+    }
+
+    @Test
+    void matches_checksAgainstStoredHash() {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(4);
+        passwordVerifier = new PasswordVerifier(encoder, meterRegistry, 2, 8, Duration.ofSeconds(5));
+        String hash = encoder.encode("secret");
+
+        assertTrue(passwordVerifier.matches("secret", hash).join());
+        assertFalse(passwordVerifier.matches("wrong", hash).join());
+        assertEquals(2, meterRegistry.get("password.verify").timer().count());
+    }
+
+    @Test
+    void matches_unknownUser_stillHashesAgainstDummy() {
+        BCryptPasswordEncoder encoder = spy(new BCryptPasswordEncoder(4));
+        passwordVerifier = new PasswordVerifier(encoder, meterRegistry, 1, 8, Duration.ofSeconds(5));
+
+        assertFalse(passwordVerifier.matches("secret", null).join());
+        verify(encoder).matches(eq("secret"), startsWith("$2a$04$"));
+    }
+
+    @Test
+    void matches_queueFull_rejectsImmediately() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        BCryptPasswordEncoder encoder = mock(BCryptPasswordEncoder.class);
+        when(encoder.encode(any())).thenReturn("dummy");
+        when(encoder.matches(any(), any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return true;
+        });
+        passwordVerifier = new PasswordVerifier(encoder, meterRegistry, 1, 1, Duration.ofSeconds(5));
+
+        CompletableFuture<Boolean> running = passwordVerifier.matches("a", "hash");
+        started.await();
+        CompletableFuture<Boolean> queued = passwordVerifier.matches("b", "hash");
+        assertEquals(1.0, meterRegistry.get("password.verify.queue.size").gauge().value());
+
+        assertThrows(RejectedExecutionException.class, () -> passwordVerifier.matches("c", "hash"));
+        assertEquals(1.0, meterRegistry.get("password.verify.rejected").counter().count());
+
+        release.countDown();
+        assertTrue(running.join());
+        assertTrue(queued.join());
+    }
+
+    @Test
+    void matches_waitedLongerThanLimit_failsWithoutHashing() {
+        BCryptPasswordEncoder encoder = spy(new BCryptPasswordEncoder(4));
+        passwordVerifier = new PasswordVerifier(encoder, meterRegistry, 1, 8, Duration.ZERO);
+
+        CompletionException thrown = assertThrows(CompletionException.class,
+                () -> passwordVerifier.matches("secret", "hash").join());
+
+        assertInstanceOf(RejectedExecutionException.class, thrown.getCause());
+        verify(encoder, never()).matches(any(), any());
+    }
+}
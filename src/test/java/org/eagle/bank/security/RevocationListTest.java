@@ -0,0 +1,68 @@
+package org.eagle.bank.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RevocationListTest {
+
+    private static final Instant NOW = Instant.parse("2024-01-01T12:00:00Z");
+    private static final long SESSION_END = NOW.plusSeconds(3600).toEpochMilli();
+
+    UUID session = UUID.randomUUID();
+
+    @Test
+    void rotate_eachGenerationOnce() {
+        RevocationList revocationList = new RevocationList(Clock.fixed(NOW, ZoneOffset.UTC));
+
+        assertTrue(revocationList.rotate(session, 0, SESSION_END));
+        assertTrue(revocationList.rotate(session, 1, SESSION_END));
+        assertFalse(revocationList.isRevoked(session));
+    }
+
+    @Test
+    void rotate_reusedGeneration_revokesSession() {
+        RevocationList revocationList = new RevocationList(Clock.fixed(NOW, ZoneOffset.UTC));
+        revocationList.rotate(session, 0, SESSION_END);
+
+        assertFalse(revocationList.rotate(session, 0, SESSION_END));
+        assertTrue(revocationList.isRevoked(session));
+        assertFalse(revocationList.rotate(session, 1, SESSION_END));
+    }
+
+    @Test
+    void purgeExpired_dropsOnlyEndedSessions() {
+        UUID later = UUID.randomUUID();
+        RevocationList before = new RevocationList(Clock.fixed(NOW, ZoneOffset.UTC));
+        before.revoke(session, SESSION_END);
+        before.revoke(later, SESSION_END + 10 * RevocationList.BUCKET_MILLIS);
+
+        before.purgeExpired();
+        assertEquals(2, before.size());
+
+        RevocationList after = new RevocationList(Clock.fixed(NOW.plusSeconds(3600 + 120), ZoneOffset.UTC));
+        after.revoke(session, SESSION_END);
+        after.revoke(later, SESSION_END + 10 * RevocationList.BUCKET_MILLIS);
+        after.purgeExpired();
+
+        assertFalse(after.isRevoked(session));
+        assertTrue(after.isRevoked(later));
+        assertEquals(1, after.size());
+    }
+
+    @Test
+    void revoke_keepsTheLaterEnd() {
+        RevocationList revocationList = new RevocationList(Clock.fixed(NOW.plusSeconds(3600 + 120), ZoneOffset.UTC));
+        revocationList.revoke(session, SESSION_END + 10 * RevocationList.BUCKET_MILLIS);
+        revocationList.revoke(session, SESSION_END);
+
+        revocationList.purgeExpired();
+
+        assertTrue(revocationList.isRevoked(session));
+    }
+}
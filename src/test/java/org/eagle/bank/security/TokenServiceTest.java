@@ -0,0 +1,70 @@
+package org.eagle.bank.security;
+
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TokenServiceTest {
+
+    JwtUtil jwtUtil = new JwtUtil("eagle-bank-secret-key-eagle-bank-secret-key");
+
+    RevocationList revocationList = new RevocationList();
+
+    TokenService tokenService = new TokenService(jwtUtil, revocationList, Duration.ofMinutes(15), Duration.ofDays(7));
+
+    @Test
+    void issue_accessTokenIsValidAndRefreshTokenIsNot() {
+        TokenService.TokenPair tokens = tokenService.issue("john");
+
+        Claims access = jwtUtil.extractAllClaims(tokens.accessToken());
+        assertTrue(jwtUtil.isTokenValid(access));
+        assertEquals("john", access.getSubject());
+        assertFalse(jwtUtil.isTokenValid(jwtUtil.extractAllClaims(tokens.refreshToken())));
+        assertEquals(900, tokens.expiresInSeconds());
+    }
+
+    @Test
+    void refresh_rotatesWithinTheSameSession() {
+        TokenService.TokenPair first = tokenService.issue("john");
+
+        TokenService.TokenPair second = tokenService.refresh(first.refreshToken()).orElseThrow();
+
+        Claims firstRefresh = jwtUtil.extractAllClaims(first.refreshToken());
+        Claims secondRefresh = jwtUtil.extractAllClaims(second.refreshToken());
+        assertEquals(JwtUtil.sessionId(firstRefresh), JwtUtil.sessionId(secondRefresh));
+        assertEquals(firstRefresh.getExpiration(), secondRefresh.getExpiration());
+        assertTrue(tokenService.refresh(second.refreshToken()).isPresent());
+    }
+
+    @Test
+    void refresh_reusedToken_endsSession() {
+        TokenService.TokenPair first = tokenService.issue("john");
+        TokenService.TokenPair second = tokenService.refresh(first.refreshToken()).orElseThrow();
+
+        assertEquals(Optional.empty(), tokenService.refresh(first.refreshToken()));
+        assertEquals(Optional.empty(), tokenService.refresh(second.refreshToken()));
+        assertTrue(tokenService.isRevoked(JwtUtil.sessionId(jwtUtil.extractAllClaims(second.accessToken()))));
+    }
+
+    @Test
+    void refresh_accessTokenOrGarbage_isRejected() {
+        TokenService.TokenPair tokens = tokenService.issue("john");
+
+        assertEquals(Optional.empty(), tokenService.refresh(tokens.accessToken()));
+        assertEquals(Optional.empty(), tokenService.refresh("not.a.token"));
+    }
+
+    @Test
+    void logout_revokesSessionAndItsRefreshToken() {
+        TokenService.TokenPair tokens = tokenService.issue("john");
+
+        tokenService.logout(tokens.accessToken());
+
+        assertTrue(tokenService.isRevoked(JwtUtil.sessionId(jwtUtil.extractAllClaims(tokens.accessToken()))));
+        assertEquals(Optional.empty(), tokenService.refresh(tokens.refreshToken()));
+    }
+}
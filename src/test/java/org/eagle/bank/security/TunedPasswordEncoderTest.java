@@ -0,0 +1,46 @@
+package org.eagle.bank.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TunedPasswordEncoderTest {
+
+    TunedPasswordEncoder encoder = new TunedPasswordEncoder(5);
+
+    @Test
+    void encode_recordsAlgorithmAndCost() {
+        String hash = encoder.encode("secret");
+
+        assertTrue(hash.startsWith("{bcrypt}$2a$05$"));
+        assertTrue(encoder.matches("secret", hash));
+        assertFalse(encoder.upgradeEncoding(hash));
+    }
+
+    @Test
+    void legacyUnprefixedHash_matchesAndNeedsUpgrade() {
+        String legacy = new BCryptPasswordEncoder(5).encode("secret");
+
+        assertTrue(encoder.matches("secret", legacy));
+        assertFalse(encoder.matches("wrong", legacy));
+        assertTrue(encoder.upgradeEncoding(legacy));
+    }
+
+    @Test
+    void upgradeEncoding_anyOtherCost() {
+        assertTrue(encoder.upgradeEncoding(new TunedPasswordEncoder(4).encode("secret")));
+        assertTrue(encoder.upgradeEncoding(new TunedPasswordEncoder(6).encode("secret")));
+    }
+
+    @Test
+    void strengthFor_doublesUpToTargetWithinBounds() {
+        Duration target = Duration.ofMillis(100);
+
+        assertEquals(12, TunedPasswordEncoder.strengthFor(20_000_000, 10, 14, target));
+        assertEquals(10, TunedPasswordEncoder.strengthFor(200_000_000, 10, 14, target));
+        assertEquals(14, TunedPasswordEncoder.strengthFor(1_000, 10, 14, target));
+    }
+}
@@ -0,0 +1,110 @@
+package org.eagle.bank.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.eagle.bank.model.AccountSnapshot;
+import org.eagle.bank.model.BankAccount;
+import org.eagle.bank.model.User;
+import org.eagle.bank.util.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountCacheTest {
+
+    SimpleMeterRegistry meterRegistry;
+    AccountCache accountCache;
+    AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        accountCache = new AccountCache(100, Duration.ofMinutes(5), meterRegistry);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void getByNumber_loadsOnceThenServesFromCache() {
+        AccountSnapshot snapshot = snapshot("01000001", "10.00");
+
+        accountCache.getByNumber("01000001", () -> load(snapshot));
+        Optional<AccountSnapshot> second = accountCache.getByNumber("01000001", () -> load(snapshot));
+
+        assertSame(snapshot, second.orElseThrow());
+        assertEquals(1, loads.get());
+        assertEquals(1.0, counter("accounts.byNumber", "hit"));
+        assertEquals(1.0, counter("accounts.byNumber", "miss"));
+    }
+
+    @Test
+    void getByNumber_missingAccountIsNotCached() {
+        accountCache.getByNumber("01000001", () -> {
+            loads.incrementAndGet();
+            return Optional.empty();
+        });
+        accountCache.getByNumber("01000001", () -> {
+            loads.incrementAndGet();
+            return Optional.empty();
+        });
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void invalidateAfterCommit_withoutTransaction_dropsBothViewsImmediately() {
+        AccountSnapshot snapshot = snapshot("01000001", "10.00");
+        accountCache.getByNumber("01000001", () -> load(snapshot));
+        accountCache.getByUser(1L, () -> List.of(snapshot));
+
+        accountCache.invalidateAfterCommit(account("01000001"));
+
+        AccountSnapshot updated = snapshot("01000001", "20.00");
+        assertSame(updated, accountCache.getByNumber("01000001", () -> load(updated)).orElseThrow());
+        assertEquals(List.of(updated), accountCache.getByUser(1L, () -> List.of(updated)));
+    }
+
+    @Test
+    void getByNumber_invalidatedWhileLoading_doesNotKeepStaleSnapshot() {
+        AccountSnapshot stale = snapshot("01000001", "10.00");
+
+        Optional<AccountSnapshot> loaded = accountCache.getByNumber("01000001", () -> {
+            // a posting commits between the database read and the cache write
+            accountCache.invalidate("01000001", 1L);
+            return load(stale);
+        });
+
+        assertSame(stale, loaded.orElseThrow());
+        AccountSnapshot fresh = snapshot("01000001", "20.00");
+        assertSame(fresh, accountCache.getByNumber("01000001", () -> load(fresh)).orElseThrow());
+        assertEquals(2, loads.get());
+    }
+
+    private Optional<AccountSnapshot> load(AccountSnapshot snapshot) {
+        loads.incrementAndGet();
+        return Optional.of(snapshot);
+    }
+
+    private double counter(String cache, String result) {
+        return meterRegistry.get("cache.gets").tags("cache", cache, "result", result).functionCounter().count();
+    }
+
+    private static AccountSnapshot snapshot(String accountNumber, String balance) {
+        return new AccountSnapshot(1L, accountNumber, "10-10-10", "Main", "personal", Money.toMinorUnits(new BigDecimal(balance)), 1L);
+    }
+
+    private static BankAccount account(String accountNumber) {
+        User user = new User();
+        user.setId(1L);
+        BankAccount account = new BankAccount();
+        account.setId(1L);
+        account.setAccountNumber(accountNumber);
+        account.setUser(user);
+        return account;
+    }
+}
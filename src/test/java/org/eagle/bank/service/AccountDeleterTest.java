@@ -0,0 +1,86 @@
+package org.eagle.bank.service;
+
+import org.eagle.bank.repository.BalanceCheckpointRepository;
+import org.eagle.bank.repository.BankAccountRepository;
+import org.eagle.bank.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness =  Strictness.LENIENT)
+public class AccountDeleterTest {
+
+    @Mock
+    TransactionRepository transactionRepository;
+    @Mock
+    BankAccountRepository accountRepository;
+    @Mock
+    BalanceCheckpointRepository checkpointRepository;
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    AccountDeleter accountDeleter;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        when(accountRepository.close(1L)).thenReturn(1);
+        when(transactionRepository.deleteByIds(anyList())).thenAnswer(invocation -> invocation.<List<?>>getArgument(0).size());
+        accountDeleter = new AccountDeleter(transactionRepository, accountRepository, checkpointRepository,
+                transactionManager, 2);
+    }
+
+    @Test
+    void delete_closesAccountThenRemovesHistoryInChunksThenAccount() {
+        when(transactionRepository.countByAccountId(1L)).thenReturn(3L);
+        when(transactionRepository.findIdsByAccountId(eq(1L), any()))
+                .thenReturn(List.of(10L, 11L))
+                .thenReturn(List.of(12L));
+
+        assertEquals(3, accountDeleter.delete(1L));
+
+        InOrder order = inOrder(transactionRepository, accountRepository, checkpointRepository, transactionManager);
+        order.verify(accountRepository).close(1L);
+        order.verify(transactionManager).commit(any());
+        order.verify(transactionRepository).deleteByIds(List.of(10L, 11L));
+        order.verify(transactionRepository).deleteByIds(List.of(12L));
+        order.verify(checkpointRepository).deleteById(1L);
+        order.verify(accountRepository).deleteAccountById(1L);
+        verify(transactionManager, times(4)).commit(any());
+        verify(transactionRepository, never()).findByAccount(any());
+        verify(accountRepository, never()).deleteById(any());
+    }
+
+    @Test
+    void delete_emptyHistory_removesAccount() {
+        when(transactionRepository.findIdsByAccountId(eq(1L), any())).thenReturn(List.of());
+
+        assertEquals(0, accountDeleter.delete(1L));
+        verify(transactionRepository, never()).deleteByIds(any());
+        verify(accountRepository).deleteAccountById(1L);
+    }
+
+    @Test
+    void delete_missingAccount_deletesNothing() {
+        when(accountRepository.close(1L)).thenReturn(0);
+
+        assertEquals(0, accountDeleter.delete(1L));
+        verify(transactionRepository, never()).findIdsByAccountId(any(), any());
+        verify(checkpointRepository, never()).deleteById(any());
+        verify(accountRepository, never()).deleteAccountById(any());
+    }
+}
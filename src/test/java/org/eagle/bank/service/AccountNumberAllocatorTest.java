@@ -0,0 +1,162 @@
+package org.eagle.bank.service;
+
+import org.eagle.bank.repository.AccountNumberRangeRepository;
+import org.eagle.bank.repository.BankAccountRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness =  Strictness.LENIENT)
+public class AccountNumberAllocatorTest {
+
+    @Mock
+    AccountNumberRangeRepository rangeRepository;
+    @Mock
+    BankAccountRepository accountRepository;
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    // stands in for the account_number_range row
+    AtomicLong highWaterMark = new AtomicLong(1);
+
+    @BeforeEach
+    void setUp() {
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        when(rangeRepository.advance(eq("02"), anyLong()))
+                .thenAnswer(invocation -> {
+                    highWaterMark.addAndGet(invocation.getArgument(1));
+                    return 1;
+                });
+        when(rangeRepository.findNextValue("02")).thenAnswer(invocation -> highWaterMark.get());
+    }
+
+    @Test
+    void allocate_handsOutBlockFromMemory() {
+        AccountNumberAllocator allocator = allocator(10);
+
+        for (int i = 1; i <= 10; i++) {
+            assertEquals(String.format("02%06d", i), allocator.allocate());
+        }
+        verify(rangeRepository, times(1)).advance("02", 10);
+
+        assertEquals("02000011", allocator.allocate());
+        verify(rangeRepository, times(2)).advance("02", 10);
+    }
+
+    @Test
+    void allocate_blocksAreDisjointAcrossInstances() {
+        AccountNumberAllocator first = allocator(5);
+        AccountNumberAllocator second = allocator(5);
+
+        assertEquals("02000001", first.allocate());
+        assertEquals("02000006", second.allocate());
+        assertEquals("02000002", first.allocate());
+    }
+
+    @Test
+    void allocate_withoutRange_seedsAboveHighestExistingNumber() {
+        when(rangeRepository.advance(eq("02"), anyLong())).thenReturn(0).thenAnswer(invocation -> {
+            highWaterMark.addAndGet(invocation.getArgument(1));
+            return 1;
+        });
+        when(accountRepository.findHighestAccountNumber("02______")).thenReturn("02765432");
+        doAnswer(invocation -> {
+            highWaterMark.set(invocation.getArgument(1));
+            return null;
+        }).when(rangeRepository).insert(eq("02"), anyLong());
+
+        assertEquals("02765433", allocator(10).allocate());
+        verify(rangeRepository).insert("02", 765433L);
+    }
+
+    @Test
+    void allocate_withRandomNumbersNearTopOfOldRange_stillHasTheWholeRange() {
+        when(rangeRepository.advance(eq("02"), anyLong())).thenReturn(0).thenAnswer(invocation -> {
+            highWaterMark.addAndGet(invocation.getArgument(1));
+            return 1;
+        });
+        when(accountRepository.findHighestAccountNumber(anyString()))
+                .thenAnswer(invocation -> "01______".equals(invocation.getArgument(0)) ? "01999987" : null);
+        doAnswer(invocation -> {
+            highWaterMark.set(invocation.getArgument(1));
+            return null;
+        }).when(rangeRepository).insert(eq("02"), anyLong());
+        AccountNumberAllocator allocator = allocator(100);
+
+        assertEquals("02000001", allocator.allocate());
+        for (int i = 0; i < 998; i++) {
+            allocator.allocate();
+        }
+        assertEquals("02001000", allocator.allocate());
+        verify(rangeRepository).insert("02", 1L);
+    }
+
+    @Test
+    void allocate_rangeSeededConcurrently_usesTheOtherInstancesRow() {
+        when(rangeRepository.advance(eq("02"), anyLong())).thenReturn(0).thenAnswer(invocation -> {
+            highWaterMark.addAndGet(invocation.getArgument(1));
+            return 1;
+        });
+        doThrow(new DataIntegrityViolationException("duplicate")).when(rangeRepository).insert(eq("02"), anyLong());
+
+        assertEquals("02000001", allocator(10).allocate());
+    }
+
+    @Test
+    void allocate_pastLastNumber_fails() {
+        highWaterMark.set(999_999);
+        AccountNumberAllocator allocator = allocator(10);
+
+        assertEquals("02999999", allocator.allocate());
+        assertThrows(IllegalStateException.class, allocator::allocate);
+    }
+
+    @Test
+    void allocate_concurrentCallers_neverShareANumber() throws Exception {
+        AccountNumberAllocator allocator = allocator(7);
+        int threads = 8;
+        int perThread = 500;
+        List<Future<List<String>>> results = new ArrayList<>();
+        try (ExecutorService pool = Executors.newFixedThreadPool(threads)) {
+            for (int t = 0; t < threads; t++) {
+                results.add(pool.submit(() -> {
+                    List<String> numbers = new ArrayList<>(perThread);
+                    for (int i = 0; i < perThread; i++) {
+                        numbers.add(allocator.allocate());
+                    }
+                    return numbers;
+                }));
+            }
+        }
+        Set<String> unique = new HashSet<>();
+        for (Future<List<String>> result : results) {
+            unique.addAll(result.get());
+        }
+        assertEquals(threads * perThread, unique.size());
+    }
+
+    private AccountNumberAllocator allocator(int blockSize) {
+        return new AccountNumberAllocator(rangeRepository, accountRepository, transactionManager, blockSize);
+    }
+}
@@ -2,6 +2,8 @@ package org.eagle.bank.service;
 
 import org.eagle.bank.model.BankAccount;
 import org.eagle.bank.model.User;
+import org.eagle.bank.model.BalanceCheckpoint;
+import org.eagle.bank.repository.BalanceCheckpointRepository;
 import org.eagle.bank.repository.BankAccountRepository;
 import org.eagle.bank.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -21,6 +23,7 @@ import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 import static org.mockito.Mockito.verify;
 
@@ -37,6 +40,18 @@ class BankAccountServiceTest {
     @Mock
     UserRepository userRepository;
 
+    @Mock
+    BalanceCheckpointRepository checkpointRepository;
+
+    @Mock
+    AccountCache accountCache;
+
+    @Mock
+    AccountNumberAllocator accountNumberAllocator;
+
+    @Mock
+    AccountDeleter accountDeleter;
+
     User user;
     BankAccount bankAccount;
 
@@ -66,6 +81,22 @@ class BankAccountServiceTest {
         assertNotNull(result);
         assertEquals(bankAccount, result);
         verify(bankAccountRepository).save(bankAccount);
+        verify(checkpointRepository).save(argThat((BalanceCheckpoint checkpoint) ->
+                checkpoint.getAccountId().equals(1L)
+                        && checkpoint.getBalance().compareTo(BigDecimal.valueOf(1000.0)) == 0
+                        && checkpoint.getLastTransactionId() == 0L));
+        verify(accountCache).invalidateAfterCommit(bankAccount);
+    }
+
+    @Test
+    void createAccount_assignsAllocatedAccountNumber() {
+        when(accountNumberAllocator.allocate()).thenReturn("01000042");
+        when(bankAccountRepository.save(any(BankAccount.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        BankAccount result = bankAccountService.createAccount(bankAccount);
+
+        assertEquals("01000042", result.getAccountNumber());
+        verify(accountNumberAllocator).allocate();
     }
 
     @Test
@@ -90,6 +121,17 @@ class BankAccountServiceTest {
         verify(bankAccountRepository).findByAccountNumber("123456789");
     }
 
+    @Test
+    void getUserAccount_queriesByAccountNumberAndOwner() {
+        when(bankAccountRepository.findByAccountNumberAndUserId("123456789", 1L)).thenReturn(Optional.of(bankAccount));
+
+        Optional<BankAccount> result = bankAccountService.getUserAccount("123456789", 1L);
+
+        assertTrue(result.isPresent());
+        verify(bankAccountRepository).findByAccountNumberAndUserId("123456789", 1L);
+        verify(bankAccountRepository, never()).findByAccountNumber(any());
+    }
+
     @Test
     void getAccountsByUser_returnsListOfAccounts() {
         List<BankAccount> accounts = List.of(bankAccount);
@@ -112,14 +154,15 @@ class BankAccountServiceTest {
         assertNotNull(result);
         assertEquals(bankAccount, result);
         verify(bankAccountRepository).save(bankAccount);
+        verify(accountCache).invalidateAfterCommit(bankAccount);
     }
 
     @Test
-    void deleteAccount_deletesById() {
-        doNothing().when(bankAccountRepository).deleteById(1L);
-
-        bankAccountService.deleteAccount(1L);
+    void deleteAccount_deletesThroughDeleter() {
+        bankAccountService.deleteAccount(bankAccount);
 
-        verify(bankAccountRepository).deleteById(1L);
+        verify(accountDeleter).delete(1L);
+        verify(bankAccountRepository, never()).deleteById(any());
+        verify(accountCache).invalidateAfterCommit(bankAccount);
     }
 }
\ No newline at end of file
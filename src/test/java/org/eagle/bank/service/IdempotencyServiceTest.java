@@ -0,0 +1,169 @@
+package org.eagle.bank.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.eagle.bank.dto.TransactionResponse;
+import org.eagle.bank.model.BankAccount;
+import org.eagle.bank.model.IdempotencyRecord;
+import org.eagle.bank.model.Transaction;
+import org.eagle.bank.model.User;
+import org.eagle.bank.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness =  Strictness.LENIENT)
+public class IdempotencyServiceTest {
+
+    @Mock
+    IdempotencyRecordRepository repository;
+
+    ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    Clock clock = Clock.fixed(Instant.parse("2024-01-01T00:00:00Z"), ZoneOffset.UTC);
+
+    IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = new IdempotencyService(repository, objectMapper, 100, Duration.ofHours(24), clock);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        idempotencyService.shutdown();
+    }
+
+    @Test
+    void claim_newKey_isAcquired() {
+        IdempotencyService.Claim claim = idempotencyService.claim(1L, "key-1", "fp");
+
+        assertEquals(IdempotencyService.Outcome.ACQUIRED, claim.outcome());
+        verify(repository).saveAndFlush(any(IdempotencyRecord.class));
+    }
+
+    @Test
+    void claim_afterComplete_replaysFromMemory() {
+        idempotencyService.claim(1L, "key-1", "fp");
+        TransactionResponse response = new TransactionResponse();
+        response.setId("tan-1");
+        idempotencyService.complete(1L, "key-1", response);
+
+        IdempotencyService.Claim claim = idempotencyService.claim(1L, "key-1", "fp");
+
+        assertEquals(IdempotencyService.Outcome.REPLAY, claim.outcome());
+        assertSame(response, claim.response());
+        verify(repository, times(1)).saveAndFlush(any(IdempotencyRecord.class));
+        verify(repository, never()).findByUserIdAndIdempotencyKey(any(), any());
+        verify(repository, never()).complete(any(), any(), any(), any());
+    }
+
+    @Test
+    void recordPosted_storesResponseOfKeyedPosting() {
+        User user = new User();
+        user.setId(3L);
+        BankAccount account = new BankAccount();
+        account.setId(2L);
+        account.setAccountNumber("01000001");
+        account.setUser(user);
+        Transaction posted = new Transaction(51L, Transaction.TransactionType.DEPOSIT, new BigDecimal("10.00"),
+                clock.instant(), account, null);
+        posted.setIdempotencyKey(1L, "key-1");
+
+        idempotencyService.recordPosted(posted);
+
+        verify(repository).complete(eq(1L), eq("key-1"), contains("\"51\""), eq(clock.instant()));
+    }
+
+    @Test
+    void recordPosted_withoutKey_writesNothing() {
+        idempotencyService.recordPosted(new Transaction());
+
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void claim_differentFingerprint_isMismatch() {
+        idempotencyService.claim(1L, "key-1", "fp");
+        idempotencyService.complete(1L, "key-1", new TransactionResponse());
+
+        assertEquals(IdempotencyService.Outcome.MISMATCH, idempotencyService.claim(1L, "key-1", "other").outcome());
+    }
+
+    @Test
+    void claim_whileOriginalRunning_waitsForItsResult() {
+        idempotencyService.claim(1L, "key-1", "fp");
+
+        IdempotencyService.Claim duplicate = idempotencyService.claim(1L, "key-1", "fp");
+        assertEquals(IdempotencyService.Outcome.IN_PROGRESS, duplicate.outcome());
+        assertFalse(duplicate.inFlight().isDone());
+
+        TransactionResponse response = new TransactionResponse();
+        idempotencyService.complete(1L, "key-1", response);
+        assertSame(response, duplicate.inFlight().join().orElseThrow());
+    }
+
+    @Test
+    void release_freesKeyForRetry() {
+        idempotencyService.claim(1L, "key-1", "fp");
+        IdempotencyService.Claim duplicate = idempotencyService.claim(1L, "key-1", "fp");
+
+        idempotencyService.release(1L, "key-1");
+
+        assertTrue(duplicate.inFlight().join().isEmpty());
+        verify(repository, timeout(1000)).deletePending(1L, "key-1");
+        assertEquals(IdempotencyService.Outcome.ACQUIRED, idempotencyService.claim(1L, "key-1", "fp").outcome());
+    }
+
+    @Test
+    void claim_keyStoredByAnotherInstance_replaysStoredResponse() throws Exception {
+        TransactionResponse stored = new TransactionResponse();
+        stored.setId("tan-1");
+        IdempotencyRecord record = new IdempotencyRecord(1L, "key-1", "fp", clock.instant());
+        record.setResponseBody(objectMapper.writeValueAsString(stored));
+        when(repository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("duplicate"));
+        when(repository.findByUserIdAndIdempotencyKey(1L, "key-1")).thenReturn(Optional.of(record));
+
+        IdempotencyService.Claim claim = idempotencyService.claim(1L, "key-1", "fp");
+
+        assertEquals(IdempotencyService.Outcome.REPLAY, claim.outcome());
+        assertEquals("tan-1", claim.response().getId());
+    }
+
+    @Test
+    void claim_keyPendingOnAnotherInstance_isInProgress() {
+        when(repository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("duplicate"));
+        when(repository.findByUserIdAndIdempotencyKey(1L, "key-1"))
+                .thenReturn(Optional.of(new IdempotencyRecord(1L, "key-1", "fp", clock.instant())));
+
+        IdempotencyService.Claim claim = idempotencyService.claim(1L, "key-1", "fp");
+
+        assertEquals(IdempotencyService.Outcome.IN_PROGRESS, claim.outcome());
+        assertNull(claim.inFlight());
+    }
+
+    @Test
+    void fingerprint_isStableAndFieldSensitive() {
+        assertEquals(IdempotencyService.fingerprint("01000001", "deposit", "10"),
+                IdempotencyService.fingerprint("01000001", "deposit", "10"));
+        assertNotEquals(IdempotencyService.fingerprint("01000001", "deposit", "10"),
+                IdempotencyService.fingerprint("01000001", "deposit", "100"));
+    }
+}
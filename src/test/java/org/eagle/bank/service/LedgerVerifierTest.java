@@ -0,0 +1,208 @@
+package org.eagle.bank.service;
+
+import org.eagle.bank.model.BalanceCheckpoint;
+import org.eagle.bank.model.Transaction;
+import org.eagle.bank.repository.BalanceCheckpointRepository;
+import org.eagle.bank.repository.BankAccountRepository;
+import org.eagle.bank.repository.TransactionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness =  Strictness.LENIENT)
+public class LedgerVerifierTest {
+
+    private static final Instant NOW = Instant.parse("2024-01-01T12:00:00Z");
+    private static final Transaction.TransactionType DEPOSIT = Transaction.TransactionType.DEPOSIT;
+    private static final Instant SETTLED_BEFORE = NOW.minus(Duration.ofMinutes(5));
+    private static final Instant CHECKPOINT_AT = NOW.minusSeconds(3600);
+
+    @Mock
+    BankAccountRepository accountRepository;
+    @Mock
+    TransactionRepository transactionRepository;
+    @Mock
+    BalanceCheckpointRepository checkpointRepository;
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    LedgerVerifier ledgerVerifier;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        ledgerVerifier = new LedgerVerifier(accountRepository, transactionRepository, checkpointRepository,
+                transactionManager, Duration.ofMinutes(5), 2, 2, Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @AfterEach
+    void tearDown() {
+        ledgerVerifier.shutdown();
+    }
+
+    @Test
+    void verifyAccount_matchingLedger_advancesCheckpointToSettledTransactions() {
+        BalanceCheckpoint checkpoint = new BalanceCheckpoint(1L, new BigDecimal("100.00"), CHECKPOINT_AT, 10L,
+                CHECKPOINT_AT);
+        Instant settledAt = NOW.minusSeconds(600);
+        when(checkpointRepository.findById(1L)).thenReturn(Optional.of(checkpoint));
+        when(accountRepository.findLedgerView(1L, CHECKPOINT_AT, 10L, DEPOSIT))
+                .thenReturn(Optional.of(view("130.00", "30.00")));
+        when(transactionRepository.findSettledAfter(eq(1L), eq(CHECKPOINT_AT), eq(10L), eq(SETTLED_BEFORE), any()))
+                .thenReturn(List.of(position(settledAt, 15L)));
+        when(transactionRepository.sumNetAmount(1L, CHECKPOINT_AT, 10L, settledAt, 15L, DEPOSIT))
+                .thenReturn(new BigDecimal("20.00"));
+
+        LedgerVerifier.AccountCheck check = ledgerVerifier.verifyAccount(1L);
+
+        assertEquals(LedgerVerifier.Status.CONSISTENT, check.status());
+        assertEquals(0, new BigDecimal("120.00").compareTo(checkpoint.getBalance()));
+        assertEquals(settledAt, checkpoint.getLastTransactionTimestamp());
+        assertEquals(15L, checkpoint.getLastTransactionId());
+        assertEquals(NOW, checkpoint.getCheckpointedAt());
+        verify(checkpointRepository).save(checkpoint);
+    }
+
+    @Test
+    void verifyAccount_settledPositionHasLowerIdThanCheckpoint_advancesByTimestamp() {
+        // id 7 was drawn from another instance's sequence block before id 10, but was written after it
+        BalanceCheckpoint checkpoint = new BalanceCheckpoint(1L, new BigDecimal("100.00"), CHECKPOINT_AT, 10L,
+                CHECKPOINT_AT);
+        Instant settledAt = CHECKPOINT_AT.plusSeconds(1);
+        when(checkpointRepository.findById(1L)).thenReturn(Optional.of(checkpoint));
+        when(accountRepository.findLedgerView(1L, CHECKPOINT_AT, 10L, DEPOSIT))
+                .thenReturn(Optional.of(view("105.00", "5.00")));
+        when(transactionRepository.findSettledAfter(eq(1L), eq(CHECKPOINT_AT), eq(10L), eq(SETTLED_BEFORE), any()))
+                .thenReturn(List.of(position(settledAt, 7L)));
+        when(transactionRepository.sumNetAmount(1L, CHECKPOINT_AT, 10L, settledAt, 7L, DEPOSIT))
+                .thenReturn(new BigDecimal("5.00"));
+
+        assertEquals(LedgerVerifier.Status.CONSISTENT, ledgerVerifier.verifyAccount(1L).status());
+        assertEquals(0, new BigDecimal("105.00").compareTo(checkpoint.getBalance()));
+        assertEquals(settledAt, checkpoint.getLastTransactionTimestamp());
+        assertEquals(7L, checkpoint.getLastTransactionId());
+    }
+
+    @Test
+    void verifyAccount_nothingSettled_leavesCheckpoint() {
+        BalanceCheckpoint checkpoint = new BalanceCheckpoint(1L, new BigDecimal("100.00"), CHECKPOINT_AT, 10L,
+                CHECKPOINT_AT);
+        when(checkpointRepository.findById(1L)).thenReturn(Optional.of(checkpoint));
+        when(accountRepository.findLedgerView(1L, CHECKPOINT_AT, 10L, DEPOSIT))
+                .thenReturn(Optional.of(view("100.00", "0")));
+        when(transactionRepository.findSettledAfter(anyLong(), any(), anyLong(), any(), any())).thenReturn(List.of());
+
+        assertEquals(LedgerVerifier.Status.CONSISTENT, ledgerVerifier.verifyAccount(1L).status());
+        verify(checkpointRepository, never()).save(any());
+    }
+
+    @Test
+    void verifyAccount_balanceDisagreesWithLedger_reportsDriftAndKeepsCheckpoint() {
+        BalanceCheckpoint checkpoint = new BalanceCheckpoint(1L, new BigDecimal("100.00"), CHECKPOINT_AT, 10L,
+                CHECKPOINT_AT);
+        when(checkpointRepository.findById(1L)).thenReturn(Optional.of(checkpoint));
+        when(accountRepository.findLedgerView(1L, CHECKPOINT_AT, 10L, DEPOSIT))
+                .thenReturn(Optional.of(view("150.00", "30.00")));
+
+        LedgerVerifier.AccountCheck check = ledgerVerifier.verifyAccount(1L);
+
+        assertEquals(LedgerVerifier.Status.DRIFT, check.status());
+        assertEquals(0, new BigDecimal("130.00").compareTo(check.drift().expected()));
+        assertEquals(0, new BigDecimal("20.00").compareTo(check.drift().difference()));
+        assertEquals(10L, checkpoint.getLastTransactionId());
+        verify(checkpointRepository, never()).save(any());
+        verifyNoInteractions(transactionRepository);
+    }
+
+    @Test
+    void verifyAccount_withoutCheckpoint_seedsFromFullLedger() {
+        when(checkpointRepository.findById(1L)).thenReturn(Optional.empty());
+        when(accountRepository.findLedgerView(1L, Instant.EPOCH, 0L, DEPOSIT))
+                .thenReturn(Optional.of(view("150.00", "50.00")));
+
+        assertEquals(LedgerVerifier.Status.SEEDED, ledgerVerifier.verifyAccount(1L).status());
+        verify(checkpointRepository).save(argThat(checkpoint ->
+                checkpoint.getBalance().compareTo(new BigDecimal("100.00")) == 0 && checkpoint.getLastTransactionId() == 0L));
+    }
+
+    @Test
+    void verifyAccount_deletedAccount_removesCheckpoint() {
+        BalanceCheckpoint checkpoint = new BalanceCheckpoint(1L, BigDecimal.TEN, CHECKPOINT_AT, 10L, NOW);
+        when(checkpointRepository.findById(1L)).thenReturn(Optional.of(checkpoint));
+        when(accountRepository.findLedgerView(1L, CHECKPOINT_AT, 10L, DEPOSIT)).thenReturn(Optional.empty());
+
+        assertEquals(LedgerVerifier.Status.GONE, ledgerVerifier.verifyAccount(1L).status());
+        verify(checkpointRepository).delete(checkpoint);
+    }
+
+    @Test
+    void verifyAll_pagesThroughAccountsAndReports() {
+        when(accountRepository.findOpenIdsAfter(eq(0L), any())).thenReturn(List.of(1L, 2L));
+        when(accountRepository.findOpenIdsAfter(eq(2L), any())).thenReturn(List.of(3L));
+        for (long id = 1; id <= 3; id++) {
+            when(checkpointRepository.findById(id))
+                    .thenReturn(Optional.of(new BalanceCheckpoint(id, BigDecimal.TEN, Instant.EPOCH, 0L, NOW)));
+        }
+        when(accountRepository.findLedgerView(anyLong(), eq(Instant.EPOCH), eq(0L), eq(DEPOSIT)))
+                .thenReturn(Optional.of(view("10", "0")));
+        when(accountRepository.findLedgerView(eq(2L), eq(Instant.EPOCH), eq(0L), eq(DEPOSIT)))
+                .thenReturn(Optional.of(view("12", "0")));
+        when(transactionRepository.findSettledAfter(anyLong(), any(), anyLong(), any(), any())).thenReturn(List.of());
+
+        LedgerVerifier.Report report = ledgerVerifier.verifyAll();
+
+        assertEquals(3, report.accountsVerified());
+        assertEquals(1, report.driftCount());
+        assertEquals(2L, report.drifts().get(0).accountId());
+        assertEquals(0, report.failures());
+        assertSame(report, ledgerVerifier.lastReport());
+    }
+
+    private static TransactionRepository.LedgerPosition position(Instant timestamp, Long id) {
+        return new TransactionRepository.LedgerPosition() {
+            @Override
+            public Instant getTimestamp() {
+                return timestamp;
+            }
+
+            @Override
+            public Long getId() {
+                return id;
+            }
+        };
+    }
+
+    private static BankAccountRepository.LedgerView view(String balance, String netAmount) {
+        return new BankAccountRepository.LedgerView() {
+            @Override
+            public BigDecimal getBalance() {
+                return new BigDecimal(balance);
+            }
+
+            @Override
+            public BigDecimal getNetAmount() {
+                return new BigDecimal(netAmount);
+            }
+        };
+    }
+}
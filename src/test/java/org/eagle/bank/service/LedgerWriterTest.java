@@ -0,0 +1,112 @@
+package org.eagle.bank.service;
+
+import jakarta.persistence.EntityNotFoundException;
+import org.eagle.bank.model.Transaction;
+import org.eagle.bank.repository.BankAccountRepository;
+import org.eagle.bank.repository.TransactionRepository;
+import org.eagle.bank.util.Money;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness =  Strictness.LENIENT)
+public class LedgerWriterTest {
+
+    @InjectMocks
+    LedgerWriter ledgerWriter;
+
+    @Mock
+    BankAccountRepository accountRepository;
+    @Mock
+    TransactionRepository transactionRepository;
+    @Mock
+    PlatformTransactionManager transactionManager;
+    @Mock
+    AccountCache accountCache;
+    @Mock
+    IdempotencyService idempotencyService;
+
+    @Test
+    void write_evaluatesOverdraftInOrderAndWritesOnce() {
+        when(accountRepository.findBalanceById(1L)).thenReturn(Optional.of(new BigDecimal("100")));
+        when(accountRepository.compareAndSetBalance(eq(1L), any(), any())).thenReturn(1);
+        Transaction withdraw80 = posting(Transaction.TransactionType.WITHDRAWAL, "80");
+        Transaction withdraw50 = posting(Transaction.TransactionType.WITHDRAWAL, "50");
+        Transaction deposit30 = posting(Transaction.TransactionType.DEPOSIT, "30");
+        Transaction withdraw40 = posting(Transaction.TransactionType.WITHDRAWAL, "40");
+
+        LedgerWriter.Result result = ledgerWriter.write(1L, List.of(withdraw80, withdraw50, deposit30, withdraw40));
+
+        assertEquals(List.of(withdraw80, deposit30, withdraw40), result.posted());
+        assertEquals(List.of(withdraw50), result.rejected());
+        verify(accountRepository, times(1)).compareAndSetBalance(1L, new BigDecimal("100"), new BigDecimal("10.00"));
+        verify(transactionRepository, times(1)).saveAll(List.of(withdraw80, deposit30, withdraw40));
+        verify(idempotencyService).recordPosted(withdraw80);
+        verify(idempotencyService, never()).recordPosted(withdraw50);
+    }
+
+    @Test
+    void write_allRejected_writesNothing() {
+        when(accountRepository.findBalanceById(1L)).thenReturn(Optional.of(BigDecimal.ZERO));
+        Transaction withdraw = posting(Transaction.TransactionType.WITHDRAWAL, "1");
+
+        LedgerWriter.Result result = ledgerWriter.write(1L, List.of(withdraw));
+
+        assertTrue(result.posted().isEmpty());
+        assertEquals(List.of(withdraw), result.rejected());
+        verify(accountRepository, never()).compareAndSetBalance(any(), any(), any());
+        verify(transactionRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void write_balanceChangedUnderneath_throwsOptimisticLockingFailure() {
+        when(accountRepository.findBalanceById(1L)).thenReturn(Optional.of(new BigDecimal("100")));
+        when(accountRepository.compareAndSetBalance(eq(1L), any(), any())).thenReturn(0);
+
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> ledgerWriter.write(1L, List.of(posting(Transaction.TransactionType.DEPOSIT, "5"))));
+        verify(transactionRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void write_closedAccount_throwsNotFoundAndWritesNothing() {
+        when(accountRepository.findBalanceById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(EntityNotFoundException.class,
+                () -> ledgerWriter.write(1L, List.of(posting(Transaction.TransactionType.DEPOSIT, "5"))));
+        verify(accountRepository, never()).compareAndSetBalance(any(), any(), any());
+        verify(transactionRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void write_balanceOverflow_failsInsteadOfWrapping() {
+        when(accountRepository.findBalanceById(1L)).thenReturn(Optional.of(Money.toDecimal(Long.MAX_VALUE - 1)));
+
+        assertThrows(ArithmeticException.class,
+                () -> ledgerWriter.write(1L, List.of(posting(Transaction.TransactionType.DEPOSIT, "0.02"))));
+        verify(accountRepository, never()).compareAndSetBalance(any(), any(), any());
+    }
+
+    private static Transaction posting(Transaction.TransactionType type, String amount) {
+        Transaction transaction = new Transaction();
+        transaction.setType(type);
+        transaction.setAmount(new BigDecimal(amount));
+        return transaction;
+    }
+}
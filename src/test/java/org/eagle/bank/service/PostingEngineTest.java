@@ -0,0 +1,93 @@
+package org.eagle.bank.service;
+
+import org.eagle.bank.exception.InsufficientFundsException;
+import org.eagle.bank.model.Transaction;
+import org.eagle.bank.util.BoundedRetry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class PostingEngineTest {
+
+    LedgerWriter ledgerWriter = mock(LedgerWriter.class);
+    PostingEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = new PostingEngine(ledgerWriter, new BoundedRetry(3, 0), 2, 4, 16);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        engine.shutdown();
+    }
+
+    @Test
+    void submit_completesPostedAndFailsRejected() throws Exception {
+        Transaction deposit = posting(Transaction.TransactionType.DEPOSIT);
+        Transaction withdrawal = posting(Transaction.TransactionType.WITHDRAWAL);
+        when(ledgerWriter.write(eq(1L), anyList())).thenAnswer(invocation -> {
+            List<Transaction> postings = invocation.getArgument(1);
+            return new LedgerWriter.Result(
+                    postings.stream().filter(tx -> tx == deposit).toList(),
+                    postings.stream().filter(tx -> tx == withdrawal).toList());
+        });
+
+        CompletableFuture<Transaction> posted = engine.submit(1L, deposit);
+        CompletableFuture<Transaction> rejected = engine.submit(1L, withdrawal);
+
+        assertSame(deposit, posted.get(5, TimeUnit.SECONDS));
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> rejected.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(InsufficientFundsException.class, ex.getCause());
+    }
+
+    @Test
+    void submit_writeConflict_isRetried() throws Exception {
+        Transaction deposit = posting(Transaction.TransactionType.DEPOSIT);
+        when(ledgerWriter.write(eq(1L), anyList()))
+                .thenThrow(new CannotAcquireLockException("lock timeout"))
+                .thenReturn(new LedgerWriter.Result(List.of(deposit), List.of()));
+
+        assertSame(deposit, engine.submit(1L, deposit).get(5, TimeUnit.SECONDS));
+        verify(ledgerWriter, times(2)).write(eq(1L), anyList());
+    }
+
+    @Test
+    void submit_fullLane_isRejected() throws InterruptedException {
+        PostingEngine singleLane = new PostingEngine(ledgerWriter, new BoundedRetry(3, 0), 1, 4, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(ledgerWriter.write(eq(1L), anyList())).thenAnswer(invocation -> {
+            release.await();
+            return new LedgerWriter.Result(invocation.getArgument(1), List.of());
+        });
+
+        try {
+            assertThrows(RejectedExecutionException.class, () -> {
+                // at most one posting in flight on the lane thread plus a queue of four
+                for (int i = 0; i < 10; i++) {
+                    singleLane.submit(1L, posting(Transaction.TransactionType.DEPOSIT));
+                }
+            });
+        } finally {
+            release.countDown();
+            singleLane.shutdown();
+        }
+    }
+
+    private static Transaction posting(Transaction.TransactionType type) {
+        Transaction transaction = new Transaction();
+        transaction.setType(type);
+        transaction.setAmount(BigDecimal.TEN);
+        return transaction;
+    }
+}
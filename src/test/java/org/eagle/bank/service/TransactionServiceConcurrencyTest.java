@@ -0,0 +1,174 @@
+package org.eagle.bank.service;
+
+import jakarta.persistence.EntityNotFoundException;
+import org.eagle.bank.exception.InsufficientFundsException;
+import org.eagle.bank.model.Address;
+import org.eagle.bank.model.BalanceCheckpoint;
+import org.eagle.bank.model.BankAccount;
+import org.eagle.bank.model.Transaction;
+import org.eagle.bank.model.User;
+import org.eagle.bank.repository.BalanceCheckpointRepository;
+import org.eagle.bank.repository.BankAccountRepository;
+import org.eagle.bank.repository.TransactionRepository;
+import org.eagle.bank.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Hammers a single account from many threads with mixed deposits and withdrawals and checks that the stored
+ * balance still equals the opening balance plus the ledger, and never went negative.
+ */
+@SpringBootTest
+class TransactionServiceConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int POSTINGS_PER_THREAD = 50;
+    private static final BigDecimal OPENING_BALANCE = new BigDecimal("100.00");
+
+    @Autowired
+    private TransactionService transactionService;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private BankAccountRepository accountRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private BalanceCheckpointRepository checkpointRepository;
+    @Autowired
+    private LedgerVerifier ledgerVerifier;
+    @Autowired
+    private AccountDeleter accountDeleter;
+
+    private BankAccount account;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        User user = userRepository.save(new User(null, "Stress User", "+44" + suffix,
+                new Address(null, "1 Main St", "London", "London", "E1 1AA"),
+                suffix + "@example.com", "stress-" + suffix, "encoded"));
+        int number = ThreadLocalRandom.current().nextInt(1_000_000);
+        account = accountRepository.save(new BankAccount(null, "Stress", String.format("01%06d", number),
+                suffix.substring(0, 2) + "-" + suffix.substring(2, 4) + "-" + suffix.substring(4, 6),
+                "personal", OPENING_BALANCE, user, null));
+        checkpointRepository.save(BalanceCheckpoint.opening(account));
+    }
+
+    @Test
+    void concurrentPostings_reconcileWithLedger() throws Exception {
+        runAndReconcile(transaction -> transactionService.applyTransaction(account, transaction));
+    }
+
+    @Test
+    void concurrentLanePostings_reconcileWithLedger() throws Exception {
+        runAndReconcile(transaction -> {
+            try {
+                return transactionService.submitTransaction(account, transaction).join();
+            } catch (CompletionException e) {
+                throw (RuntimeException) e.getCause();
+            }
+        });
+    }
+
+    @Test
+    void deletionDuringPostings_closesTheAccountAndLeavesNothingBehind() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch posting = new CountDownLatch(THREADS);
+        AtomicInteger refused = new AtomicInteger();
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            workers.add(pool.submit(() -> {
+                posting.countDown();
+                while (true) {
+                    try {
+                        transactionService.submitTransaction(account, newTransaction(true, BigDecimal.ONE)).join();
+                    } catch (CompletionException e) {
+                        assertInstanceOf(EntityNotFoundException.class, e.getCause());
+                        refused.incrementAndGet();
+                        return null;
+                    }
+                }
+            }));
+        }
+        posting.await();
+        Thread.sleep(50);
+
+        accountDeleter.delete(account.getId());
+        for (Future<?> worker : workers) {
+            worker.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(THREADS, refused.get());
+        assertFalse(accountRepository.existsById(account.getId()));
+        assertEquals(0, transactionRepository.countByAccountId(account.getId()));
+        assertFalse(checkpointRepository.existsById(account.getId()));
+    }
+
+    private void runAndReconcile(Function<Transaction, Transaction> post) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger posted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            workers.add(pool.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < POSTINGS_PER_THREAD; i++) {
+                    boolean deposit = random.nextInt(3) == 0;
+                    BigDecimal amount = BigDecimal.valueOf(random.nextInt(1, 20));
+                    try {
+                        post.apply(newTransaction(deposit, amount));
+                        posted.incrementAndGet();
+                    } catch (InsufficientFundsException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        List<Transaction> ledger = transactionRepository.findByAccount(account);
+        BigDecimal net = ledger.stream()
+                .map(tx -> tx.getType() == Transaction.TransactionType.DEPOSIT ? tx.getAmount() : tx.getAmount().negate())
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal balance = accountRepository.findById(account.getId()).orElseThrow().getBalance();
+
+        assertEquals(THREADS * POSTINGS_PER_THREAD, posted.get() + rejected.get());
+        assertEquals(posted.get(), ledger.size());
+        assertEquals(0, OPENING_BALANCE.add(net).compareTo(balance), "balance " + balance + " vs ledger " + net);
+        assertTrue(balance.signum() >= 0, "account was overdrawn: " + balance);
+        assertTrue(rejected.get() > 0, "withdrawal-heavy mix should have hit the overdraft check");
+        assertEquals(LedgerVerifier.Status.CONSISTENT, ledgerVerifier.verifyAccount(account.getId()).status());
+    }
+
+    private Transaction newTransaction(boolean deposit, BigDecimal amount) {
+        Transaction transaction = new Transaction();
+        transaction.setType(deposit ? Transaction.TransactionType.DEPOSIT : Transaction.TransactionType.WITHDRAWAL);
+        transaction.setAmount(amount);
+        transaction.setAccount(account);
+        transaction.setTimestamp(Instant.now());
+        transaction.setReference("stress");
+        return transaction;
+    }
+}
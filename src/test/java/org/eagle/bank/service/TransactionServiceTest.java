@@ -1,27 +1,45 @@
 package org.eagle.bank.service;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityNotFoundException;
+import org.eagle.bank.exception.InsufficientFundsException;
 import org.eagle.bank.model.BankAccount;
 import org.eagle.bank.model.Transaction;
 import org.eagle.bank.model.User;
 import org.eagle.bank.repository.BankAccountRepository;
 import org.eagle.bank.repository.TransactionRepository;
 import org.eagle.bank.repository.UserRepository;
+import org.eagle.bank.util.BoundedRetry;
+import org.eagle.bank.util.TransactionCursor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
 
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -36,6 +54,18 @@ public class TransactionServiceTest {
     BankAccountRepository bankAccountRepository;
     @Mock
     TransactionRepository transactionRepository;
+    @Mock
+    EntityManager entityManager;
+    @Mock
+    PlatformTransactionManager transactionManager;
+    @Spy
+    BoundedRetry retry = new BoundedRetry(3, 0);
+    @Mock
+    PostingEngine postingEngine;
+    @Mock
+    LedgerWriter ledgerWriter;
+    @Mock
+    AccountCache accountCache;
 
     BankAccount bankAccount;
     Transaction transaction;
@@ -112,16 +142,142 @@ public class TransactionServiceTest {
     }
 
     @Test
-    void applyTransaction_savesTransactionAndAccount() {
+    void submitTransaction_queuesOnAccountLane() {
+        CompletableFuture<Transaction> future = CompletableFuture.completedFuture(transaction);
+        when(postingEngine.submit(1L, transaction)).thenReturn(future);
+
+        assertSame(future, transactionService.submitTransaction(bankAccount, transaction));
+    }
+
+    @Test
+    void applyTransaction_deposit_creditsAccountAndSavesTransaction() {
+        when(bankAccountRepository.credit(1L, transaction.getAmount())).thenReturn(1);
         when(transactionRepository.save(any(Transaction.class))).thenReturn(transaction);
-        when(bankAccountRepository.save(any(BankAccount.class))).thenReturn(bankAccount);
 
         Transaction result = transactionService.applyTransaction(bankAccount, transaction);
 
-        assertNotNull(result);
         assertEquals(transaction, result);
+        verify(bankAccountRepository).credit(1L, transaction.getAmount());
         verify(transactionRepository).save(transaction);
-        verify(bankAccountRepository).save(bankAccount);
+        verify(bankAccountRepository, never()).save(any(BankAccount.class));
+    }
+
+    @Test
+    void applyTransaction_withdrawalNotCovered_throwsWithoutSaving() {
+        transaction.setType(Transaction.TransactionType.WITHDRAWAL);
+        when(bankAccountRepository.debit(1L, transaction.getAmount())).thenReturn(0);
+        when(bankAccountRepository.findBalanceById(1L)).thenReturn(Optional.of(BigDecimal.ZERO));
+
+        assertThrows(InsufficientFundsException.class,
+                () -> transactionService.applyTransaction(bankAccount, transaction));
+        verify(transactionRepository, never()).save(any(Transaction.class));
+    }
+
+    @Test
+    void applyTransaction_closedAccount_throwsNotFoundWithoutSaving() {
+        when(bankAccountRepository.credit(1L, transaction.getAmount())).thenReturn(0);
+        when(bankAccountRepository.findBalanceById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(EntityNotFoundException.class,
+                () -> transactionService.applyTransaction(bankAccount, transaction));
+        verify(transactionRepository, never()).save(any(Transaction.class));
+    }
+
+    @Test
+    void applyTransaction_lockConflict_isRetried() {
+        transaction.setType(Transaction.TransactionType.WITHDRAWAL);
+        when(bankAccountRepository.debit(1L, transaction.getAmount()))
+                .thenThrow(new CannotAcquireLockException("lock timeout"))
+                .thenReturn(1);
+        when(transactionRepository.save(any(Transaction.class))).thenReturn(transaction);
+
+        Transaction result = transactionService.applyTransaction(bankAccount, transaction);
+
+        assertEquals(transaction, result);
+        verify(bankAccountRepository, times(2)).debit(1L, transaction.getAmount());
+    }
+
+    @Test
+    void applyTransaction_persistentConflict_givesUpAfterMaxAttempts() {
+        when(bankAccountRepository.credit(1L, transaction.getAmount()))
+                .thenThrow(new CannotAcquireLockException("lock timeout"));
+
+        assertThrows(CannotAcquireLockException.class,
+                () -> transactionService.applyTransaction(bankAccount, transaction));
+        verify(bankAccountRepository, times(3)).credit(1L, transaction.getAmount());
+    }
+
+    @Test
+    void postAll_writesEachAccountOnceInOneTransaction() {
+        BankAccount other = new BankAccount();
+        other.setId(2L);
+        Transaction first = new Transaction(null, Transaction.TransactionType.DEPOSIT, BigDecimal.TEN, Instant.now(), bankAccount, null);
+        Transaction second = new Transaction(null, Transaction.TransactionType.DEPOSIT, BigDecimal.ONE, Instant.now(), other, null);
+        Transaction third = new Transaction(null, Transaction.TransactionType.WITHDRAWAL, BigDecimal.ONE, Instant.now(), bankAccount, null);
+        when(ledgerWriter.write(1L, List.of(first, third))).thenReturn(new LedgerWriter.Result(List.of(first), List.of(third)));
+        when(ledgerWriter.write(2L, List.of(second))).thenReturn(new LedgerWriter.Result(List.of(second), List.of()));
+
+        LedgerWriter.Result result = transactionService.postAll(List.of(first, second, third));
+
+        assertEquals(List.of(first, second), result.posted());
+        assertEquals(List.of(third), result.rejected());
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test
+    void postAll_atomicWithRejection_rollsBackAndPostsNothing() {
+        TransactionStatus status = mock(TransactionStatus.class);
+        when(transactionManager.getTransaction(any())).thenReturn(status);
+        Transaction deposit = new Transaction(null, Transaction.TransactionType.DEPOSIT, BigDecimal.TEN, Instant.now(), bankAccount, null);
+        Transaction withdrawal = new Transaction(null, Transaction.TransactionType.WITHDRAWAL, BigDecimal.TEN, Instant.now(), bankAccount, null);
+        when(ledgerWriter.write(1L, List.of(deposit, withdrawal)))
+                .thenReturn(new LedgerWriter.Result(List.of(deposit), List.of(withdrawal)));
+
+        LedgerWriter.Result result = transactionService.postAll(List.of(deposit, withdrawal), true);
+
+        assertTrue(result.posted().isEmpty());
+        assertEquals(List.of(withdrawal), result.rejected());
+        verify(status).setRollbackOnly();
+    }
+
+    @Test
+    void getTransactionPage_lastPage_hasNoCursor() {
+        when(transactionRepository.findByAccountOrderByTimestampDescIdDesc(eq(bankAccount), any(Pageable.class)))
+                .thenReturn(List.of(transaction));
+
+        TransactionService.TransactionPage page = transactionService.getTransactionPage(bankAccount, null, 2);
+
+        assertEquals(List.of(transaction), page.transactions());
+        assertNull(page.next());
+    }
+
+    @Test
+    void getTransactionPage_moreRows_returnsCursorAtLastRowOfPage() {
+        Instant now = Instant.now();
+        List<Transaction> rows = new ArrayList<>();
+        for (long id = 3; id >= 1; id--) {
+            rows.add(new Transaction(id, Transaction.TransactionType.DEPOSIT, BigDecimal.ONE, now.minusSeconds(id),
+                    bankAccount, null));
+        }
+        TransactionCursor after = new TransactionCursor(now, 10L);
+        when(transactionRepository.findPageAfter(eq(bankAccount), eq(now), eq(10L), any(Pageable.class)))
+                .thenReturn(rows);
+
+        TransactionService.TransactionPage page = transactionService.getTransactionPage(bankAccount, after, 2);
+
+        assertEquals(2, page.transactions().size());
+        assertEquals(new TransactionCursor(rows.get(1).getTimestamp(), 2L), page.next());
+    }
+
+    @Test
+    void streamTransactions_detachesEachRowAfterConsuming() {
+        List<Transaction> seen = new ArrayList<>();
+        when(transactionRepository.streamByAccount(bankAccount)).thenReturn(Stream.of(transaction));
+
+        transactionService.streamTransactions(bankAccount, seen::add);
+
+        assertEquals(List.of(transaction), seen);
+        verify(entityManager).detach(transaction);
     }
 
 }
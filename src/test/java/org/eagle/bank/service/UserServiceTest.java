@@ -2,6 +2,8 @@ package org.eagle.bank.service;
 
 import org.eagle.bank.model.User;
 import org.eagle.bank.repository.UserRepository;
+import org.eagle.bank.security.PasswordVerifier;
+import org.eagle.bank.security.TokenCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -9,9 +11,12 @@ import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -27,12 +32,25 @@ class UserServiceTest {
     UserRepository userRepository;
 
     @Mock
-    BCryptPasswordEncoder passwordEncoder;
+    PasswordEncoder passwordEncoder;
+
+    @Mock
+    TokenCache tokenCache;
+
+    @Mock
+    PasswordVerifier passwordVerifier;
+
+    @Mock
+    Executor blockingExecutor;
 
     User user;
 
     @BeforeEach
     void setUp() {
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(blockingExecutor).execute(any());
         user = new User();
         user.setId(1L);
         user.setUsername("john");
@@ -87,14 +105,15 @@ class UserServiceTest {
     void deleteUser_deletesById() {
         userService.deleteUser(1L);
         verify(userRepository).deleteById(1L);
+        verify(tokenCache).evictUser(1L);
     }
 
     @Test
     void authenticateUser_success() {
         when(userRepository.findByUsername("john")).thenReturn(Optional.of(user));
-        when(passwordEncoder.matches("rawpass", "rawpass")).thenReturn(true);
+        when(passwordVerifier.matches("rawpass", "rawpass")).thenReturn(CompletableFuture.completedFuture(true));
 
-        Optional<User> result = userService.authenticateUser("john", "rawpass");
+        Optional<User> result = userService.authenticateUser("john", "rawpass").join();
         assertTrue(result.isPresent());
         assertEquals("john", result.get().getUsername());
     }
@@ -102,16 +121,67 @@ class UserServiceTest {
     @Test
     void authenticateUser_wrongPassword_returnsEmpty() {
         when(userRepository.findByUsername("john")).thenReturn(Optional.of(user));
-        when(passwordEncoder.matches("wrongpass", "rawpass")).thenReturn(false);
+        when(passwordVerifier.matches("wrongpass", "rawpass")).thenReturn(CompletableFuture.completedFuture(false));
 
-        Optional<User> result = userService.authenticateUser("john", "wrongpass");
+        Optional<User> result = userService.authenticateUser("john", "wrongpass").join();
         assertFalse(result.isPresent());
     }
 
     @Test
     void authenticateUser_userNotFound_returnsEmpty() {
         when(userRepository.findByUsername("unknown")).thenReturn(Optional.empty());
-        Optional<User> result = userService.authenticateUser("unknown", "any");
+        when(passwordVerifier.matches("any", null)).thenReturn(CompletableFuture.completedFuture(false));
+
+        Optional<User> result = userService.authenticateUser("unknown", "any").join();
         assertFalse(result.isPresent());
+        verify(passwordVerifier).matches("any", null);
+    }
+
+    @Test
+    void authenticateUser_outdatedHash_isReplaced() {
+        when(userRepository.findByUsername("john")).thenReturn(Optional.of(user));
+        when(passwordVerifier.matches("secret", "rawpass")).thenReturn(CompletableFuture.completedFuture(true));
+        when(passwordEncoder.upgradeEncoding("rawpass")).thenReturn(true);
+        when(passwordEncoder.encode("secret")).thenReturn("rehashed");
+        when(userRepository.replacePasswordHash(1L, "rawpass", "rehashed")).thenReturn(1);
+
+        assertTrue(userService.authenticateUser("john", "secret").join().isPresent());
+        verify(blockingExecutor).execute(any());
+        verify(userRepository).replacePasswordHash(1L, "rawpass", "rehashed");
+    }
+
+    @Test
+    void authenticateUser_currentHash_isKept() {
+        when(userRepository.findByUsername("john")).thenReturn(Optional.of(user));
+        when(passwordVerifier.matches("secret", "rawpass")).thenReturn(CompletableFuture.completedFuture(true));
+        when(passwordEncoder.upgradeEncoding("rawpass")).thenReturn(false);
+
+        assertTrue(userService.authenticateUser("john", "secret").join().isPresent());
+        verify(passwordEncoder, never()).encode(any());
+        verify(userRepository, never()).replacePasswordHash(any(), any(), any());
+    }
+
+    @Test
+    void authenticateUser_rehashFails_stillLogsIn() {
+        when(userRepository.findByUsername("john")).thenReturn(Optional.of(user));
+        when(passwordVerifier.matches("secret", "rawpass")).thenReturn(CompletableFuture.completedFuture(true));
+        when(passwordEncoder.upgradeEncoding("rawpass")).thenReturn(true);
+        when(passwordEncoder.encode("secret")).thenReturn("rehashed");
+        when(userRepository.replacePasswordHash(any(), any(), any())).thenThrow(new IllegalStateException("db down"));
+
+        assertTrue(userService.authenticateUser("john", "secret").join().isPresent());
+        assertEquals("rawpass", user.getPassword());
+    }
+
+    @Test
+    void authenticateUser_blockingExecutorSaturated_stillLogsIn() {
+        when(userRepository.findByUsername("john")).thenReturn(Optional.of(user));
+        when(passwordVerifier.matches("secret", "rawpass")).thenReturn(CompletableFuture.completedFuture(true));
+        when(passwordEncoder.upgradeEncoding("rawpass")).thenReturn(true);
+        when(passwordEncoder.encode("secret")).thenReturn("rehashed");
+        doThrow(new RejectedExecutionException("saturated")).when(blockingExecutor).execute(any());
+
+        assertTrue(userService.authenticateUser("john", "secret").join().isPresent());
+        verify(userRepository, never()).replacePasswordHash(any(), any(), any());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,48 @@
+package org.eagle.bank.util;
+
+import org.eagle.bank.dto.BankAccountResponse;
+import org.eagle.bank.dto.TransactionResponse;
+import org.eagle.bank.dto.UserResponse;
+import org.eagle.bank.model.BankAccount;
+import org.eagle.bank.model.Transaction;
+import org.eagle.bank.model.User;
+import org.modelmapper.Converter;
+import org.modelmapper.ModelMapper;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * The reflective ModelMapper response mapping MapperUtil used before it was specialised by hand.
+ * Kept as the reference the hand-written mappers are checked and benchmarked against.
+ */
+public class LegacyResponseMapper {
+    private final ModelMapper modelMapper = new ModelMapper();
+
+    public LegacyResponseMapper() {
+        Converter<Instant, OffsetDateTime> instantToOffsetConverter = ctx ->
+                ctx.getSource() == null ? null : ctx.getSource().atOffset(ZoneOffset.UTC);
+        modelMapper.addConverter(instantToOffsetConverter);
+    }
+
+    public UserResponse toUserResponse(User user) {
+        return modelMapper.map(user, UserResponse.class);
+    }
+
+    public BankAccountResponse toBankAccountResponse(BankAccount bankAccount) {
+        BankAccountResponse response = modelMapper.map(bankAccount, BankAccountResponse.class);
+        response.setUserId(bankAccount.getUser().getId().toString());
+        response.setAccountType(BankAccountResponse.AccountTypeEnum.valueOf(bankAccount.getAccountType().toUpperCase()));
+        return response;
+    }
+
+    public TransactionResponse toTransactionResponse(Transaction transaction) {
+        TransactionResponse tx = modelMapper.map(transaction, TransactionResponse.class);
+        tx.setAccountId(transaction.getAccount().getId().toString());
+        tx.setAccountNumber(transaction.getAccount().getAccountNumber());
+        tx.setUserId(transaction.getAccount().getUser().getId().toString());
+        tx.setCreatedTimestamp(transaction.getTimestamp().atOffset(ZoneOffset.UTC));
+        return tx;
+    }
+}
@@ -0,0 +1,79 @@
+package org.eagle.bank.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.eagle.bank.model.Address;
+import org.eagle.bank.model.BankAccount;
+import org.eagle.bank.model.Transaction;
+import org.eagle.bank.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The hand-written response mappers must serialise exactly as the ModelMapper-based ones did.
+ */
+public class MapperUtilTest {
+
+    ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    LegacyResponseMapper legacy = new LegacyResponseMapper();
+
+    User user;
+    BankAccount bankAccount;
+    Transaction transaction;
+
+    @BeforeEach
+    void setUp() {
+        user = new User(7L, "John Smith", "+447700900123",
+                new Address(3L, "1 Main St", "London", "Greater London", "E1 1AA"),
+                "john@example.com", "john", "encoded");
+        bankAccount = new BankAccount(11L, "Savings", "01234567", "10-10-20", "personal",
+                new BigDecimal("1250.50"), user, null);
+        transaction = new Transaction(42L, Transaction.TransactionType.WITHDRAWAL, new BigDecimal("20.00"),
+                Instant.parse("2024-05-01T10:15:30.123456789Z"), bankAccount, "rent");
+    }
+
+    @Test
+    void toUserResponse_matchesLegacyJson() throws Exception {
+        assertSameJson(legacy.toUserResponse(user), MapperUtil.toUserResponse(user));
+    }
+
+    @Test
+    void toUserResponse_withoutAddress_matchesLegacyJson() throws Exception {
+        user.setAddress(null);
+
+        assertSameJson(legacy.toUserResponse(user), MapperUtil.toUserResponse(user));
+    }
+
+    @Test
+    void toBankAccountResponse_matchesLegacyJson() throws Exception {
+        assertSameJson(legacy.toBankAccountResponse(bankAccount), MapperUtil.toBankAccountResponse(bankAccount));
+    }
+
+    @Test
+    void toBankAccountResponse_withoutName_matchesLegacyJson() throws Exception {
+        bankAccount.setName(null);
+
+        assertSameJson(legacy.toBankAccountResponse(bankAccount), MapperUtil.toBankAccountResponse(bankAccount));
+    }
+
+    @Test
+    void toTransactionResponse_matchesLegacyJson() throws Exception {
+        assertSameJson(legacy.toTransactionResponse(transaction), MapperUtil.toTransactionResponse(transaction));
+    }
+
+    @Test
+    void toTransactionResponse_withoutReference_matchesLegacyJson() throws Exception {
+        transaction.setReference(null);
+        transaction.setType(Transaction.TransactionType.DEPOSIT);
+
+        assertSameJson(legacy.toTransactionResponse(transaction), MapperUtil.toTransactionResponse(transaction));
+    }
+
+    private void assertSameJson(Object expected, Object actual) throws Exception {
+        assertEquals(objectMapper.writeValueAsString(expected), objectMapper.writeValueAsString(actual));
+    }
+}
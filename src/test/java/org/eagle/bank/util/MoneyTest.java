@@ -0,0 +1,49 @@
+package org.eagle.bank.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+
+    @Test
+    void toMinorUnits_convertsExactly() {
+        assertEquals(1050L, Money.toMinorUnits(new BigDecimal("10.50")));
+        assertEquals(1050L, Money.toMinorUnits(new BigDecimal("10.500")));
+        assertEquals(1000L, Money.toMinorUnits(BigDecimal.TEN));
+        assertEquals(-1L, Money.toMinorUnits(new BigDecimal("-0.01")));
+    }
+
+    @Test
+    void toMinorUnits_rejectsSubPennyAmounts() {
+        assertThrows(ArithmeticException.class, () -> Money.toMinorUnits(new BigDecimal("0.001")));
+        assertFalse(Money.isExact(new BigDecimal("10.005")));
+        assertTrue(Money.isExact(new BigDecimal("10.00")));
+    }
+
+    @Test
+    void toMinorUnits_rejectsAmountsBeyondLongRange() {
+        assertThrows(ArithmeticException.class, () -> Money.toMinorUnits(new BigDecimal("1E+18")));
+        // largest value of a precision 19, scale 2 column
+        assertThrows(ArithmeticException.class, () -> Money.toMinorUnits(new BigDecimal("99999999999999999.99")));
+        assertEquals(Long.MAX_VALUE, Money.toMinorUnits(Money.toDecimal(Long.MAX_VALUE)));
+    }
+
+    @Test
+    void toDecimal_roundTripsWithScaleTwo() {
+        BigDecimal decimal = Money.toDecimal(1050L);
+
+        assertEquals(new BigDecimal("10.50"), decimal);
+        assertEquals(1050L, Money.toMinorUnits(decimal));
+    }
+
+    @Test
+    void arithmetic_failsOnOverflow() {
+        assertEquals(3L, Money.add(1L, 2L));
+        assertEquals(-1L, Money.subtract(1L, 2L));
+        assertThrows(ArithmeticException.class, () -> Money.add(Long.MAX_VALUE, 1L));
+        assertThrows(ArithmeticException.class, () -> Money.subtract(Long.MIN_VALUE, 1L));
+    }
+}